@@ -1,15 +1,29 @@
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.css.PseudoClass;
+import javafx.event.Event;
+import javafx.event.EventType;
+import javafx.beans.InvalidationListener;
 import javafx.concurrent.Task;
 import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
 import javafx.scene.Cursor;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.LinearGradient;
@@ -17,11 +31,16 @@ import javafx.scene.paint.Stop;
 import javafx.scene.paint.CycleMethod;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.scene.effect.BlurType;
 import javafx.scene.effect.DropShadow;
+import javafx.scene.effect.GaussianBlur;
 import javafx.scene.effect.Glow;
 import javafx.scene.effect.InnerShadow;
 import javafx.stage.Stage;
+import javafx.animation.Animation;
+import javafx.animation.AnimationTimer;
 import javafx.animation.FadeTransition;
+import javafx.animation.PauseTransition;
 import javafx.animation.ScaleTransition;
 import javafx.animation.TranslateTransition;
 import javafx.animation.Timeline;
@@ -31,12 +50,71 @@ import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 import javafx.scene.media.MediaView;
 import javafx.scene.shape.Rectangle;
-import javafx.beans.binding.Bindings;
 
 import java.awt.Desktop;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
 
 public class SmartLifeRecommenderFX extends Application {
     
@@ -47,9 +125,126 @@ public class SmartLifeRecommenderFX extends Application {
     private static final Color SIDEBAR_BG = Color.rgb(20, 20, 30);
     private static final Color SIDEBAR_HOVER = Color.rgb(229, 9, 20, 0.8);
     
-    // Data structure
-    private Map<String, Map<String, List<Recommendation>>> data = new HashMap<>();
-    private Map<String, Set<String>> genres = new HashMap<>();
+    // Card effects shared by every card (never modified); backgrounds and hover colours are in getCustomCSS()
+    private static final DropShadow CATEGORY_CARD_SHADOW = new DropShadow(BlurType.THREE_PASS_BOX, Color.rgb(0, 0, 0, 0.4), 15, 0, 0, 8);
+    private static final DropShadow GENRE_CARD_SHADOW = new DropShadow(BlurType.THREE_PASS_BOX, Color.rgb(0, 0, 0, 0.5), 12, 0, 0, 6);
+    private static final DropShadow RECOMMENDATION_CARD_SHADOW = new DropShadow(BlurType.THREE_PASS_BOX, Color.rgb(0, 0, 0, 0.6), 15, 0, 0, 8);
+    private static final Glow CARD_HOVER_GLOW = new Glow(0.6);
+    private static final Glow GENRE_CARD_HOVER_GLOW = new Glow(0.5);
+    
+    // Binary catalog file, generated from the feeds (or built-in seed data) on first launch
+    private static final String CATALOG_FILE = "catalog.bin";
+    // Optional directory of .jsonl / .csv catalog feeds that replace the built-in seed data
+    private static final String CATALOG_FEED_DIR = "catalog";
+    
+    // Typeahead search shows one grid page of matches
+    private static final int SEARCH_RESULT_LIMIT = 8;
+    // Time allowed for prefix and typo-tolerant matching per keystroke, well inside one frame
+    private static final long FUZZY_SEARCH_BUDGET_NANOS = 8_000_000L;
+    
+    // Data structure - an immutable snapshot, swapped atomically when the feeds change
+    private volatile Catalog catalog;
+    private volatile TitleIndex titleIndex;
+    private volatile SimilarityIndex similarityIndex;
+    private CatalogReloader catalogReloader;
+    
+    // "People who opened this also opened" - learned from card clicks
+    private static final int RELATED_LIMIT = 6;
+    private CoOpenModel coOpenModel = new CoOpenModel();
+    private VBox relatedRow;
+    // Last genre page built; the next genre reuses its nodes when the layout still fits
+    private GenrePage genrePage;
+    
+    // Append-only log of navigation and clicks; replayed at startup to restore the co-open model
+    private static final String EVENT_LOG_DIR = "events";
+    private EventLog eventLog;
+    // Opens recorded while the previous sessions are still being replayed
+    private List<Recommendation> pendingOpens = new ArrayList<>();
+    
+    // Per-user state kept across launches: favourites, seen items, genre preferences
+    private static final String PROFILE_DIR = "profile";
+    private static final String PROFILE_FAVOURITE = "favourite";
+    private static final String PROFILE_SEEN = "seen";
+    private static final String PROFILE_GENRE_OPENS = "genre-opens";
+    private final String profileId = System.getProperty("user.name", "default");
+    private ProfileStore profileStore;
+    // This user's seen and favourite item keys, read once when the store opens so that
+    // binding a card never reads the store; kept in step with every write
+    private Set<String> seenItems = new HashSet<>();
+    private Set<String> favouriteItems = new HashSet<>();
+    
+    // Card images are decoded on a small background pool, visible cards first
+    private static final String THUMBNAIL_DIR = "thumbnails";
+    // Posters, team photos and the logo packed into one memory-mapped file
+    private static final String ASSET_PACK_FILE = "assets.pack";
+    private volatile AssetPack assetPack;
+    private final ImageLoader imageLoader = new ImageLoader(Long.getLong("slr.imageCacheMB", 128) << 20,
+        new ThumbnailCache(Paths.get(THUMBNAIL_DIR)));
+    // Shares of a grid page: header, recommendations grid (genre page / search and similar
+    // pages, which have no related row) and the genre page's related row
+    private static final double GRID_HEADER_SHARE = 0.15;
+    private static final double GENRE_GRID_SHARE = 0.70;
+    private static final double RESULTS_GRID_SHARE = 0.85;
+    private static final double RELATED_ROW_SHARE = 0.15;
+    // Recommendation grid: 4 columns and 2 rows on screen, with cards kept bound one row beyond
+    private static final int GRID_COLUMNS = 4;
+    private static final int GRID_VISIBLE_ROWS = 2;
+    private static final int GRID_OVERSCAN_ROWS = 1;
+    // Hover time before a card starts prefetching the page behind it
+    private static final double HOVER_PREFETCH_DELAY_MS = 120;
+    // Pages prepared faster than this appear without the loading animation
+    private static final double LOADING_INDICATOR_DELAY_MS = 150;
+    // Page still being prepared in the background; the next navigation cancels it
+    private Task<?> pageLoad;
+    private PauseTransition loadingIndicatorDelay;
+    // Built pages kept for going back; only reused within one layout bucket of window size
+    private static final int PAGE_CACHE_CAPACITY = 8;
+    private static final double LAYOUT_BUCKET_PX = 50;
+    private final PageCache pageCache = new PageCache(PAGE_CACHE_CAPACITY);
+    
+    // Window resizes are coalesced into one layout plan per frame, applied to the content
+    // area in place; pages are rebuilt for a new layout bucket only once resizing pauses
+    private static final double WINDOW_WIDTH = 1400;
+    private static final double WINDOW_HEIGHT = 900;
+    private static final double RELAYOUT_QUIET_MS = 200;
+    private LayoutPlan layoutPlan = new LayoutPlan(WINDOW_WIDTH, WINDOW_HEIGHT, false);
+    private AnimationTimer layoutPulse;
+    private boolean layoutScheduled;
+    private PauseTransition relayoutQuiet;
+    private String settledLayoutBucket;
+    // Page on screen; grid pages resize in place through its relayout, the rest are rebuilt
+    private PageCache.Page shownPage;
+    private CategoryPage shownCategoryPage;
+    
+    // Frame timing per view: -Dslr.frameStats=true records from startup, F12 toggles an
+    // on-screen overlay (starting the recording if needed); tables go to FRAME_STATS_LOG
+    private static final String FRAME_STATS_LOG = "frame-stats.log";
+    private static final long FRAME_STATS_DUMP_SECONDS = Long.getLong("slr.frameStatsDumpSeconds", 60);
+    private FrameStats frameStats;
+    private Label frameStatsOverlay;
+    
+    // Leak check (-Dslr.soakNavigations=N): heap may grow by this much between laps after
+    // warm-up, and the exit status reports whether every check passed
+    private static final int SOAK_NAVIGATIONS = Integer.getInteger("slr.soakNavigations", 0);
+    private static final long SOAK_HEAP_SLACK_KB = 16 << 10;
+    private static volatile int soakExitCode;
+    // Listeners registered on the stage's width and height
+    private int windowListeners;
+    // Allocation probe (-Dslr.allocationProbe=N): page builds and card hovers measured N times each
+    private static final int ALLOCATION_PROBE_ITERATIONS = Integer.getInteger("slr.allocationProbe", 0);
+    
+    // Startup runs in parallel with the intro: the catalog, profile and logo are read in the
+    // background, then the indices start and the main scene is built while the video plays.
+    // The scene is swapped in when both the video and the preparation are done.
+    private final StartupTimeline startup = new StartupTimeline();
+    private Scene mainScene;
+    private boolean introFinished;
+    // "interactive" waits for the main scene's first frame and both indices (built or failed)
+    private boolean mainFrameShown;
+    private boolean titleIndexSettled;
+    private boolean similarityIndexSettled;
+    private boolean interactiveMarked;
+    private volatile Image logoImage;
     
     // UI Components
     private BorderPane root;
@@ -57,6 +252,7 @@ public class SmartLifeRecommenderFX extends Application {
     private VBox sidebar;
     private ImageView logoView;
     private Button toggleButton;
+    private TextField searchField;
     private String currentView = "Home";
     private String currentCategory = "";
     private String currentGenre = "";
@@ -66,16 +262,157 @@ public class SmartLifeRecommenderFX extends Application {
     @Override
     public void start(Stage primaryStage) {
         this.primaryStage = primaryStage;
+        startup.mark("start");
         
-        // Initialize data
-        seedGenres();
-        seedData();
+        // Mapped first so the logo can be read from it in the background
+        openAssetPack();
+        prepareMainApp();
         
-        // Show video intro first
+        // Show video intro while the app is prepared
         showVideoIntro();
     }
     
+    // Reads the catalog header, opens the profile and decodes the logo off the FX thread,
+    // then starts the indices and builds the main scene before the intro has finished
+    private void prepareMainApp() {
+        // Kept so that a failure after the catalog was read does not lose it
+        Catalog[] loadedCatalog = new Catalog[1];
+        Task<Catalog> prepareTask = new Task<Catalog>() {
+            @Override
+            protected Catalog call() {
+                // Only the catalog header is read here, items are decoded on demand
+                Catalog loaded = loadCatalog();
+                loadedCatalog[0] = loaded;
+                startup.mark("catalog loaded");
+                openProfileStore();
+                startup.mark("profile opened");
+                logoImage = loadLogo();
+                startup.mark("logo decoded");
+                return loaded;
+            }
+        };
+        
+        prepareTask.setOnSucceeded(e -> mainAppPrepared(prepareTask.getValue()));
+        prepareTask.setOnFailed(e -> {
+            // No file I/O is retried on the FX thread: the built-in seed catalog is compiled in memory
+            System.out.println("Error preparing app: " + prepareTask.getException());
+            Catalog loaded = loadedCatalog[0];
+            mainAppPrepared(loaded != null ? loaded : seedCatalog());
+        });
+        
+        Thread prepareThread = new Thread(prepareTask, "startup");
+        prepareThread.setDaemon(true);
+        prepareThread.start();
+    }
+    
+    private void mainAppPrepared(Catalog loaded) {
+        catalog = loaded;
+        buildTitleIndex();
+        buildSimilarityIndex();
+        openEventLog();
+        
+        mainScene = buildMainScene();
+        startCatalogReloader();
+        startup.mark("main scene built");
+        warmGenreImages();
+        
+        if (introFinished) {
+            showMainScene();
+        }
+    }
+    
+    // Called when the intro ends, is skipped or cannot play
+    private void finishIntro() {
+        if (introFinished) {
+            return;
+        }
+        introFinished = true;
+        startup.mark("intro finished");
+        if (mainScene != null) {
+            showMainScene();
+        }
+    }
+    
+    // Once the main scene has been drawn and search and "More like this" work, marks
+    // "interactive" on a later pulse than the first frame and prints the timeline
+    private void markInteractiveWhenReady() {
+        if (interactiveMarked || !mainFrameShown || !titleIndexSettled || !similarityIndexSettled) {
+            return;
+        }
+        interactiveMarked = true;
+        // Added from inside a pulse listener, so it first runs on the next pulse
+        markOnFirstPulse(mainScene, "interactive", startup::print);
+        Platform.requestNextPulse();
+    }
+    
+    // Marks a startup phase on the scene's next layout pulse, the last step before it is drawn
+    private void markOnFirstPulse(Scene scene, String phase, Runnable then) {
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            scene.removePostLayoutPulseListener(listener[0]);
+            startup.mark(phase);
+            then.run();
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+    
+    private Image loadLogo() {
+        try {
+            AssetPack pack = assetPack;
+            File logoFile = new File("logo.png");
+            if (pack != null && pack.contains("logo.png")) {
+                return new Image(pack.open("logo.png"));
+            }
+            if (logoFile.exists()) {
+                return new Image(logoFile.toURI().toString());
+            }
+        } catch (Exception e) {
+            System.out.println("Error loading logo: " + e.getMessage());
+        }
+        return null;
+    }
+    
+    // Queues the posters of each category's first genre page, the ones most likely to be
+    // opened first, behind anything a visible card asks for
+    private void warmGenreImages() {
+        CardMetrics cards = layoutPlan.genreCards;
+        Catalog snapshot = catalog;
+        for (String category : snapshot.categories()) {
+            Iterator<String> genres = snapshot.genres(category).iterator();
+            if (!genres.hasNext()) {
+                continue;
+            }
+            List<Recommendation> recommendations = snapshot.recommendations(category, genres.next());
+            for (int i = 0; i < Math.min(GRID_COLUMNS * GRID_VISIBLE_ROWS, recommendations.size()); i++) {
+                imageLoader.prefetch(recommendations.get(i).imagePath, cards.imageWidth, cards.imageHeight);
+            }
+        }
+    }
+    
+    @Override
+    public void stop() {
+        if (catalogReloader != null) {
+            catalogReloader.stop();
+        }
+        if (eventLog != null) {
+            eventLog.close();
+        }
+        if (profileStore != null) {
+            profileStore.close();
+        }
+        if (frameStats != null) {
+            dumpFrameStats();
+        }
+        if (Boolean.getBoolean("slr.frameStats")) {
+            System.out.println(imageLoader.cache().stats());
+        }
+    }
+    
     private void showVideoIntro() {
+        if (SOAK_NAVIGATIONS > 0 || ALLOCATION_PROBE_ITERATIONS > 0) {
+            finishIntro();
+            return;
+        }
         try {
             // Create intro scene
             StackPane introPane = new StackPane();
@@ -99,6 +436,7 @@ public class SmartLifeRecommenderFX extends Application {
                 primaryStage.setTitle("Smart Life Recommender");
                 primaryStage.setScene(introScene);
                 primaryStage.show();
+                markOnFirstPulse(introScene, "first frame", () -> { });
                 
                 // Play video
                 mediaPlayer.play();
@@ -106,28 +444,31 @@ public class SmartLifeRecommenderFX extends Application {
                 // When video ends, show main app
                 mediaPlayer.setOnEndOfMedia(() -> {
                     mediaPlayer.dispose();
-                    Platform.runLater(this::initializeMainApp);
+                    Platform.runLater(this::finishIntro);
                 });
                 
                 // Skip video on click
                 introPane.setOnMouseClicked(e -> {
+                    if (introFinished) {
+                        return;
+                    }
                     mediaPlayer.stop();
                     mediaPlayer.dispose();
-                    initializeMainApp();
+                    finishIntro();
                 });
                 
             } else {
                 // If video not found, go directly to main app
                 System.out.println("Video file not found: introofapp.mp4");
-                initializeMainApp();
+                finishIntro();
             }
         } catch (Exception e) {
             System.out.println("Error loading video: " + e.getMessage());
-            initializeMainApp();
+            finishIntro();
         }
     }
     
-    private void initializeMainApp() {
+    private Scene buildMainScene() {
         // Create main layout with gradient background
         root = new BorderPane();
         
@@ -143,47 +484,313 @@ public class SmartLifeRecommenderFX extends Application {
         Background background = new Background(backgroundFill);
         root.setBackground(background);
         
-        // Create toggle button for sidebar
+        // Create toggle button for sidebar and the title search box
         toggleButton = createToggleButton();
-        root.setTop(toggleButton);
+        searchField = createSearchField();
+        
+        Region topSpacer = new Region();
+        HBox.setHgrow(topSpacer, Priority.ALWAYS);
+        frameStatsOverlay = new Label();
+        frameStatsOverlay.setFont(Font.font("Consolas", 11));
+        frameStatsOverlay.setTextFill(Color.rgb(180, 180, 180));
+        frameStatsOverlay.setPadding(new Insets(0, 15, 0, 0));
+        frameStatsOverlay.setVisible(false);
+        frameStatsOverlay.setManaged(false);
+        HBox topBar = new HBox(toggleButton, topSpacer, frameStatsOverlay, searchField);
+        topBar.setAlignment(Pos.CENTER_LEFT);
+        topBar.setPadding(new Insets(0, 20, 0, 0));
+        root.setTop(topBar);
         
         // Create content area WITHOUT ScrollPane - everything fits in window
         contentArea = new VBox();
         contentArea.setAlignment(Pos.TOP_CENTER);
         
-        // Bind content area to available space (window height minus toggle button)
-        contentArea.prefHeightProperty().bind(primaryStage.heightProperty().subtract(60)); // Subtract toggle button height
-        contentArea.prefWidthProperty().bind(primaryStage.widthProperty());
-        
-        // Responsive padding that scales with window size
-        contentArea.paddingProperty().bind(Bindings.createObjectBinding(() -> {
-            double width = primaryStage.getWidth();
-            double height = primaryStage.getHeight();
-            double padding = Math.max(10, Math.min(30, width * 0.015));
-            return new Insets(padding);
-        }, primaryStage.widthProperty(), primaryStage.heightProperty()));
-        
-        // Responsive spacing that scales with available height
-        contentArea.spacingProperty().bind(Bindings.createDoubleBinding(() -> {
-            double height = contentArea.getPrefHeight();
-            return Math.max(10, height * 0.02);
-        }, contentArea.prefHeightProperty()));
+        // Size, padding and spacing follow the window through the layout plan
+        installLayoutEngine();
         
         root.setCenter(contentArea);
         
         // Load initial content directly (NO LOADING SCREEN)
         loadHomeContentDirect();
         
-        // Create scene with enhanced styling
-        Scene scene = new Scene(root, 1400, 900);
+        // Create scene with enhanced styling; styles are applied now so the first frame
+        // after the intro only has to lay out and draw
+        Scene scene = new Scene(root, WINDOW_WIDTH, WINDOW_HEIGHT);
         scene.getStylesheets().add("data:text/css," + getCustomCSS());
+        root.applyCss();
         
+        scene.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            if (e.getCode() == KeyCode.F12) {
+                toggleFrameStatsOverlay();
+            }
+        });
+        return scene;
+    }
+    
+    private void showMainScene() {
         // Make window resizable and responsive
         primaryStage.setMinWidth(1000);
         primaryStage.setMinHeight(700);
         primaryStage.setTitle("Smart Life Recommender");
-        primaryStage.setScene(scene);
+        primaryStage.setScene(mainScene);
         primaryStage.show();
+        
+        // With no intro the main scene is the first frame
+        markOnFirstPulse(mainScene, "first frame", () -> {
+            mainFrameShown = true;
+            markInteractiveWhenReady();
+        });
+        
+        if (Boolean.getBoolean("slr.frameStats")) {
+            startFrameStats();
+        }
+        
+        if (ALLOCATION_PROBE_ITERATIONS > 0) {
+            Platform.runLater(() -> runAllocationProbe(ALLOCATION_PROBE_ITERATIONS));
+        } else if (SOAK_NAVIGATIONS > 0) {
+            runNavigationSoak(SOAK_NAVIGATIONS);
+        }
+    }
+    
+    // An AnimationTimer takes the time between pulses, and the scene's post-layout pulse
+    // listener the FX-thread work from the start of the pulse to the end of layout
+    private void startFrameStats() {
+        FrameStats stats = new FrameStats();
+        frameStats = stats;
+        long[] pulseStart = new long[1];
+        new AnimationTimer() {
+            private long lastFrame;
+            private long lastOverlay;
+            private long lastDump = System.nanoTime();
+            
+            @Override
+            public void handle(long now) {
+                pulseStart[0] = System.nanoTime();
+                if (lastFrame != 0) {
+                    stats.recordFrame(currentView, (now - lastFrame) / 1000);
+                }
+                lastFrame = now;
+                
+                if (frameStatsOverlay.isVisible() && now - lastOverlay > 500_000_000L) {
+                    lastOverlay = now;
+                    frameStatsOverlay.setText(stats.summary(currentView));
+                }
+                if (now - lastDump > FRAME_STATS_DUMP_SECONDS * 1_000_000_000L) {
+                    lastDump = now;
+                    dumpFrameStats();
+                }
+            }
+        }.start();
+        primaryStage.getScene().addPostLayoutPulseListener(() -> {
+            if (pulseStart[0] != 0) {
+                stats.recordPulse(currentView, (System.nanoTime() - pulseStart[0]) / 1000);
+                pulseStart[0] = 0;
+            }
+        });
+    }
+    
+    private void toggleFrameStatsOverlay() {
+        if (frameStats == null) {
+            startFrameStats();
+        }
+        boolean show = !frameStatsOverlay.isVisible();
+        frameStatsOverlay.setVisible(show);
+        frameStatsOverlay.setManaged(show);
+        frameStatsOverlay.setText(frameStats.summary(currentView));
+    }
+    
+    // Appends the per-view table to FRAME_STATS_LOG and starts a new interval
+    private void dumpFrameStats() {
+        try {
+            Files.write(Paths.get(FRAME_STATS_LOG), frameStats.dump().getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.out.println("Error writing frame stats: " + e.getMessage());
+        }
+        frameStats.reset();
+    }
+    
+    // Labels the work running now, so jank in this frame is reported against it
+    private void markOperation(String operation) {
+        if (frameStats != null) {
+            frameStats.operation(operation);
+        }
+    }
+    
+    // Leak check (-Dslr.soakNavigations=N): skips the intro and visits every page in turn,
+    // one navigation per frame once the previous page is on screen. Every 1,000 navigations
+    // it prints a sample (heap in use after a GC, window listeners, attached and reachable
+    // lifecycle hooks, running page animations, cached pages). Every lap of the route ends
+    // on the same page, so after two warm-up laps each lap's sample must match the first:
+    // the same counts, no more reachable hooks, and no more than SOAK_HEAP_SLACK_KB (or 10%)
+    // extra heap. The app then exits, with status 1 if any check failed.
+    private void runNavigationSoak(int navigations) {
+        List<Runnable> route = new ArrayList<>();
+        route.add(this::loadHomeContentDirect);
+        Catalog snapshot = catalog;
+        for (String category : snapshot.categories()) {
+            route.add(() -> {
+                currentCategory = category;
+                loadCategoryGenres(category);
+            });
+            for (String genre : snapshot.genres(category)) {
+                route.add(() -> {
+                    currentCategory = category;
+                    currentGenre = genre;
+                    loadGenreRecommendations(category, genre);
+                });
+            }
+        }
+        route.add(this::loadOurTeamPage);
+        route.add(() -> loadSearchResults("the"));
+        
+        long started = System.nanoTime();
+        new AnimationTimer() {
+            private int done;
+            private long[] baseline;
+            private final List<String> failures = new ArrayList<>();
+            
+            @Override
+            public void handle(long now) {
+                if (pageLoad != null) {
+                    return;
+                }
+                boolean lapEnd = done > 0 && done % route.size() == 0;
+                boolean report = done % 1000 == 0 || done == navigations;
+                if (lapEnd || report) {
+                    long[] sample = soakSample();
+                    if (report) {
+                        System.out.println(String.format("Soak: %,d navigations, %,d KB heap in use, %d window listeners, "
+                            + "%d hooks attached / %d reachable, %d page animations running, %d cached pages",
+                            done, sample[0], sample[1], sample[2], sample[3], sample[4], sample[5]));
+                    }
+                    if (lapEnd && done == 2 * route.size()) {
+                        baseline = sample;
+                    } else if (lapEnd && baseline != null) {
+                        checkSoakSample(done, baseline, sample, failures);
+                    }
+                }
+                if (done == navigations) {
+                    stop();
+                    if (baseline == null) {
+                        failures.add(String.format("only %,d navigations; at least three laps of %d are needed", done, route.size()));
+                    }
+                    System.out.println(String.format("Soak finished in %,d ms", (System.nanoTime() - started) / 1_000_000));
+                    if (failures.isEmpty()) {
+                        System.out.println("Soak passed");
+                    } else {
+                        System.out.println("Soak FAILED (" + failures.size() + " checks):");
+                        failures.stream().limit(20).forEach(failure -> System.out.println("  " + failure));
+                    }
+                    soakExitCode = failures.isEmpty() ? 0 : 1;
+                    Platform.exit();
+                    return;
+                }
+                route.get(done % route.size()).run();
+                done++;
+            }
+        }.start();
+    }
+    
+    // Measures bytes allocated on the FX thread (ThreadMXBean) per Home page build, per
+    // genre page build and per card hover, each averaged over `iterations` runs after a
+    // warm-up. Builds include CSS and layout, so per-card effects and inline styles show
+    // up here; a hover is enter and exit with the :hover state set and styles reapplied.
+    // Prints the results and exits.
+    private void runAllocationProbe(int iterations) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        Catalog snapshot = catalog;
+        String category = snapshot.categories().iterator().next();
+        String genre = snapshot.genres(category).iterator().next();
+        List<Recommendation> items = snapshot.recommendations(category, genre);
+        
+        Runnable homeBuild = () -> {
+            pageCache.clear();
+            loadHomeContentDirect();
+            root.applyCss();
+            root.layout();
+        };
+        GenrePage[] page = new GenrePage[1];
+        Runnable genreBuild = () -> {
+            page[0] = new GenrePage(category, genre, items);
+            contentArea.getChildren().setAll(page[0].nodes);
+            root.applyCss();
+            root.layout();
+        };
+        PseudoClass hover = PseudoClass.getPseudoClass("hover");
+        Runnable cardHover = () -> {
+            for (Node child : page[0].grid.getChildrenUnmodifiable()) {
+                if (child instanceof RecommendationCard && child.isVisible()) {
+                    child.pseudoClassStateChanged(hover, true);
+                    Event.fireEvent(child, probeMouseEvent(MouseEvent.MOUSE_ENTERED));
+                    child.applyCss();
+                    child.pseudoClassStateChanged(hover, false);
+                    Event.fireEvent(child, probeMouseEvent(MouseEvent.MOUSE_EXITED));
+                    child.applyCss();
+                    return;
+                }
+            }
+        };
+        
+        String[] names = { "Home page build", "Genre page build", "Card hover" };
+        Runnable[] actions = { homeBuild, genreBuild, cardHover };
+        StringBuilder out = new StringBuilder(String.format("Allocation per operation (mean of %,d):", iterations));
+        for (int a = 0; a < actions.length; a++) {
+            for (int i = 0; i < Math.min(iterations, 20); i++) {
+                actions[a].run();
+            }
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < iterations; i++) {
+                actions[a].run();
+            }
+            long bytes = (threads.getThreadAllocatedBytes(thread) - before) / iterations;
+            out.append(String.format("%n  %-18s %,12d B", names[a], bytes));
+        }
+        System.out.println(out);
+        Platform.exit();
+    }
+    
+    private static MouseEvent probeMouseEvent(EventType<MouseEvent> type) {
+        return new MouseEvent(type, 0, 0, 0, 0, MouseButton.NONE, 0,
+            false, false, false, false, false, false, false, false, false, false, null);
+    }
+    
+    // Heap KB in use after a GC, window listeners, attached hooks, reachable hooks,
+    // running page animations and cached pages
+    private long[] soakSample() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return new long[] {
+            (runtime.totalMemory() - runtime.freeMemory()) >> 10,
+            windowListeners,
+            ViewLifecycle.attachedHooks(),
+            ViewLifecycle.reachableHooks(),
+            ViewLifecycle.runningAnimations(),
+            pageCache.size()
+        };
+    }
+    
+    private static void checkSoakSample(int done, long[] baseline, long[] sample, List<String> failures) {
+        String at = String.format("after %,d navigations: ", done);
+        if (sample[0] > baseline[0] + Math.max(SOAK_HEAP_SLACK_KB, baseline[0] / 10)) {
+            failures.add(at + String.format("heap grew from %,d KB to %,d KB", baseline[0], sample[0]));
+        }
+        if (sample[1] != baseline[1]) {
+            failures.add(at + "window listeners went from " + baseline[1] + " to " + sample[1]);
+        }
+        if (sample[2] != baseline[2]) {
+            failures.add(at + "attached hooks went from " + baseline[2] + " to " + sample[2]);
+        }
+        if (sample[3] > baseline[3]) {
+            failures.add(at + "reachable hooks grew from " + baseline[3] + " to " + sample[3]);
+        }
+        if (sample[4] != baseline[4]) {
+            failures.add(at + "running page animations went from " + baseline[4] + " to " + sample[4]);
+        }
+        if (sample[5] > PAGE_CACHE_CAPACITY) {
+            failures.add(at + sample[5] + " cached pages, over the capacity of " + PAGE_CACHE_CAPACITY);
+        }
     }
     
     private Button createToggleButton() {
@@ -236,6 +843,35 @@ public class SmartLifeRecommenderFX extends Application {
         return toggle;
     }
     
+    private TextField createSearchField() {
+        TextField field = new TextField();
+        field.setPromptText("🔍 Search titles...");
+        field.setPrefWidth(300);
+        field.setPrefHeight(36);
+        field.setFont(Font.font("Segoe UI", FontWeight.NORMAL, 14));
+        field.setStyle(
+            "-fx-background-color: rgba(255, 255, 255, 0.08); " +
+            "-fx-text-fill: white; " +
+            "-fx-prompt-text-fill: rgb(150, 150, 150); " +
+            "-fx-border-color: rgba(229, 9, 20, 0.6); " +
+            "-fx-border-width: 1; " +
+            "-fx-border-radius: 18; " +
+            "-fx-background-radius: 18;"
+        );
+        
+        // Search as the user types; clearing the box goes back home
+        field.textProperty().addListener((obs, oldText, newText) -> {
+            if (newText.trim().isEmpty()) {
+                if ("Search".equals(currentView)) {
+                    loadHomeContentDirect();
+                }
+            } else {
+                loadSearchResults(newText);
+            }
+        });
+        return field;
+    }
+    
     private void toggleSidebar() {
         if (sidebarVisible) {
             // Hide sidebar
@@ -243,7 +879,7 @@ public class SmartLifeRecommenderFX extends Application {
             sidebarVisible = false;
             
             // Expand content area
-            contentArea.prefWidthProperty().bind(primaryStage.widthProperty());
+            applyLayout();
         } else {
             // Show sidebar
             if (sidebar == null) {
@@ -253,8 +889,10 @@ public class SmartLifeRecommenderFX extends Application {
             sidebarVisible = true;
             
             // Shrink content area to accommodate sidebar
-            contentArea.prefWidthProperty().bind(primaryStage.widthProperty().subtract(250));
+            applyLayout();
         }
+        // Cards follow the new content width
+        relayoutCurrentPage();
     }
     
     private VBox createSidebar() {
@@ -319,25 +957,20 @@ public class SmartLifeRecommenderFX extends Application {
         header.setBackground(new Background(headerFill));
         
         // Load and add logo
-        try {
-            File logoFile = new File("logo.png");
-            if (logoFile.exists()) {
-                Image logoImage = new Image(logoFile.toURI().toString());
-                logoView = new ImageView(logoImage);
-                logoView.setFitWidth(80);
-                logoView.setFitHeight(80);
-                logoView.setPreserveRatio(true);
-                logoView.setSmooth(true);
-                
-                // Add glow effect to logo
-                Glow logoGlow = new Glow();
-                logoGlow.setLevel(0.4);
-                logoView.setEffect(logoGlow);
-                
-                header.getChildren().add(logoView);
-            }
-        } catch (Exception e) {
-            System.out.println("Error loading logo: " + e.getMessage());
+        // Add the logo, decoded during startup
+        if (logoImage != null) {
+            logoView = new ImageView(logoImage);
+            logoView.setFitWidth(80);
+            logoView.setFitHeight(80);
+            logoView.setPreserveRatio(true);
+            logoView.setSmooth(true);
+            
+            // Add glow effect to logo
+            Glow logoGlow = new Glow();
+            logoGlow.setLevel(0.4);
+            logoView.setEffect(logoGlow);
+            
+            header.getChildren().add(logoView);
         }
         
         // App title
@@ -489,6 +1122,7 @@ public class SmartLifeRecommenderFX extends Application {
     }
     
     private void handleNavigation(String destination) {
+        logEvent(EventLog.NAVIGATE, destination);
         switch (destination) {
             case "Home":
                 loadHomeContentDirect();
@@ -550,6 +1184,11 @@ public class SmartLifeRecommenderFX extends Application {
     }
 
     private void loadOurTeamPage() {
+        cancelPageLoad();
+        if (showCachedPage("Team", "", "")) {
+            return;
+        }
+        markOperation("build Team page");
         contentArea.getChildren().clear();
         currentView = "Team";
         
@@ -563,6 +1202,8 @@ public class SmartLifeRecommenderFX extends Application {
         // Enhanced team section - takes 80% of available height
         VBox teamSection = createTeamSection(availableHeight * 0.8);
         contentArea.getChildren().add(teamSection);
+        
+        cachePage("Team", "", "", () -> { }, null);
     }
     
     private VBox createTeamHeader(double maxHeight) {
@@ -597,10 +1238,7 @@ public class SmartLifeRecommenderFX extends Application {
         
         // Enhanced title with responsive font
         Label titleLabel = new Label("👥 Our Amazing Team");
-        titleLabel.fontProperty().bind(Bindings.createObjectBinding(() -> {
-            double fontSize = Math.max(20, Math.min(maxHeight * 0.3, 40));
-            return Font.font("Segoe UI", FontWeight.BOLD, fontSize);
-        }, primaryStage.widthProperty()));
+        titleLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, Math.max(20, Math.min(maxHeight * 0.3, 40))));
         titleLabel.setTextFill(TEXT_COLOR);
         
         // Add glow effect to title
@@ -610,10 +1248,7 @@ public class SmartLifeRecommenderFX extends Application {
         
         // Enhanced subtitle
         Label subtitleLabel = new Label("Meet the brilliant minds behind Smart Life Recommender");
-        subtitleLabel.fontProperty().bind(Bindings.createObjectBinding(() -> {
-            double fontSize = Math.max(12, Math.min(maxHeight * 0.15, 18));
-            return Font.font("Segoe UI", FontWeight.NORMAL, fontSize);
-        }, primaryStage.widthProperty()));
+        subtitleLabel.setFont(Font.font("Segoe UI", FontWeight.NORMAL, Math.max(12, Math.min(maxHeight * 0.15, 18))));
         subtitleLabel.setTextFill(Color.rgb(200, 200, 200));
         subtitleLabel.setAlignment(Pos.CENTER);
         
@@ -644,10 +1279,10 @@ public class SmartLifeRecommenderFX extends Application {
 
     // Calculate smaller card dimensions to match recommendation cards
     double cardHeight = Math.max(160, maxHeight * 0.5);
-    double cardWidth = Math.max(140, primaryStage.getWidth() * 0.15);
+    double cardWidth = Math.max(140, layoutPlan.windowWidth * 0.15);
 
     // Responsive gaps
-    double gap = Math.max(20, primaryStage.getWidth() * 0.03);
+    double gap = Math.max(20, layoutPlan.windowWidth * 0.03);
     teamGrid.setHgap(gap);
     teamGrid.setVgap(gap);
 
@@ -854,75 +1489,525 @@ public class SmartLifeRecommenderFX extends Application {
             "\n" +
             ".label {\n" +
             "    -fx-font-family: 'Segoe UI';\n" +
+            "}\n" +
+            "\n" +
+            ".category-card {\n" +
+            "    -fx-background-color: linear-gradient(to bottom right, rgb(45, 45, 55), rgb(35, 35, 45), rgb(25, 25, 35));\n" +
+            "    -fx-background-radius: 20;\n" +
+            "}\n" +
+            "\n" +
+            ".category-card:hover {\n" +
+            "    -fx-background-color: linear-gradient(to bottom right, rgba(229, 9, 20, 0.8), rgba(255, 100, 100, 0.6), rgba(229, 9, 20, 0.8));\n" +
+            "}\n" +
+            "\n" +
+            ".genre-card {\n" +
+            "    -fx-background-color: linear-gradient(to bottom right, rgb(50, 50, 60), rgb(40, 40, 50), rgb(30, 30, 40));\n" +
+            "    -fx-background-radius: 20;\n" +
+            "}\n" +
+            "\n" +
+            ".genre-card:hover {\n" +
+            "    -fx-background-color: linear-gradient(to bottom right, rgba(229, 9, 20, 0.7), rgba(255, 100, 100, 0.5), rgba(229, 9, 20, 0.7));\n" +
+            "}\n" +
+            "\n" +
+            ".recommendation-card {\n" +
+            "    -fx-background-color: linear-gradient(to bottom right, rgb(40, 40, 50), rgb(30, 30, 40), rgb(20, 20, 30));\n" +
+            "    -fx-background-radius: 15;\n" +
+            "}\n" +
+            "\n" +
+            ".recommendation-card:hover {\n" +
+            "    -fx-background-color: linear-gradient(to bottom right, rgba(229, 9, 20, 0.8), rgba(180, 0, 0, 0.6), rgba(229, 9, 20, 0.8));\n" +
+            "}\n" +
+            "\n" +
+            ".card-hint {\n" +
+            "    -fx-text-fill: rgb(180, 180, 180);\n" +
+            "}\n" +
+            "\n" +
+            ".recommendation-card:hover .card-hint {\n" +
+            "    -fx-text-fill: rgb(255, 100, 100);\n" +
+            "}\n" +
+            "\n" +
+            ".card-placeholder {\n" +
+            "    -fx-background-color: rgb(50, 50, 60);\n" +
+            "    -fx-background-radius: 10;\n" +
+            "    -fx-border-color: rgb(80, 80, 90);\n" +
+            "    -fx-border-width: 1;\n" +
+            "    -fx-border-radius: 10;\n" +
+            "}\n" +
+            "\n" +
+            ".related-chip {\n" +
+            "    -fx-background-color: rgb(40, 40, 50);\n" +
+            "    -fx-text-fill: white;\n" +
+            "    -fx-background-radius: 15;\n" +
+            "    -fx-border-color: rgb(80, 80, 90);\n" +
+            "    -fx-border-radius: 15;\n" +
+            "    -fx-padding: 4 14 4 14;\n" +
+            "}\n" +
+            "\n" +
+            ".related-chip:hover {\n" +
+            "    -fx-background-color: rgba(229, 9, 20, 0.8);\n" +
+            "    -fx-border-color: rgb(229, 9, 20);\n" +
             "}\n";
     }
     
-    private void seedGenres() {
-        // Movies genres
-        Set<String> movieGenres = new LinkedHashSet<>();
-        movieGenres.add("Action");
-        movieGenres.add("Comedy");
-        movieGenres.add("Sci-Fi");
-        movieGenres.add("Romance");
-        genres.put("Movies", movieGenres);
+    // Hover zoom for cards; one animation per card, created on its first hover and replayed after that
+    private void playHoverScale(Node card, double scale) {
+        markOperation("card hover");
+        ScaleTransition transition = (ScaleTransition) card.getProperties().get(ScaleTransition.class);
+        if (transition == null) {
+            transition = new ScaleTransition(Duration.millis(200), card);
+            card.getProperties().put(ScaleTransition.class, transition);
+        }
+        transition.stop();
+        transition.setToX(scale);
+        transition.setToY(scale);
+        transition.play();
+    }
+    
+    private Catalog loadCatalog() {
+        Path catalogPath = Paths.get(CATALOG_FILE);
+        List<Path> feeds = CatalogImporter.findFeeds(Paths.get(CATALOG_FEED_DIR));
+        try {
+            if (Files.exists(catalogPath) && !CatalogImporter.isNewerThan(feeds, catalogPath)) {
+                return MappedCatalog.open(catalogPath);
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading catalog, rebuilding: " + e.getMessage());
+        }
         
-        // Books genres
-        Set<String> bookGenres = new LinkedHashSet<>();
-        bookGenres.add("Mystery");
-        bookGenres.add("Fantasy");
-        bookGenres.add("Thriller");
-        bookGenres.add("Non-Fiction");
-        genres.put("Books", bookGenres);
+        ColumnarCatalog built = null;
+        if (!feeds.isEmpty()) {
+            // Feeds changed since the catalog was built - stream them back in
+            try {
+                CatalogImporter importer = new CatalogImporter((bytesRead, totalBytes, records) ->
+                    System.out.println(String.format("Importing catalog: %d%% (%,d records)",
+                        totalBytes == 0 ? 100 : bytesRead * 100 / totalBytes, records)));
+                CatalogImporter.Result result = importer.importFeeds(feeds);
+                built = result.catalog;
+                if (result.rejected > 0) {
+                    System.out.println("Skipped " + result.rejected + " malformed catalog records");
+                }
+            } catch (IOException e) {
+                System.out.println("Error importing catalog feeds: " + e.getMessage());
+            }
+        }
         
-        // Games genres
-        Set<String> gameGenres = new LinkedHashSet<>();
-        gameGenres.add("Adventure");
-        gameGenres.add("Racing");
-        gameGenres.add("Shooter");
-        gameGenres.add("Strategy");
-        genres.put("Games", gameGenres);
+        if (built == null || built.size() == 0) {
+            // No usable catalog file or feeds - compile the built-in seed data into one
+            built = seedCatalog();
+        }
         
-        // Anime genres
-        Set<String> animeGenres = new LinkedHashSet<>();
-        animeGenres.add("Shonen");
-        animeGenres.add("Seinen");
-        animeGenres.add("Romance");
-        animeGenres.add("Slice of Life");
-        genres.put("Anime", animeGenres);
+        try {
+            MappedCatalog.write(catalogPath, built);
+            return MappedCatalog.open(catalogPath);
+        } catch (IOException e) {
+            // Read-only install directory - serve from the in-memory columnar store instead
+            System.out.println("Error writing catalog: " + e.getMessage());
+            return built;
+        }
+    }
+    
+    // The built-in seed data as an in-memory catalog; reads no files
+    private ColumnarCatalog seedCatalog() {
+        Map<String, Set<String>> genres = new LinkedHashMap<>();
+        Map<String, Map<String, List<Recommendation>>> data = new HashMap<>();
+        seedGenres(genres);
+        seedData(data);
+        return ColumnarCatalog.fromSeed(genres, data);
+    }
+    
+    // Builds the search index off the FX thread; searches before it is ready show a hint
+    private void buildTitleIndex() {
+        Catalog source = catalog;
+        Task<TitleIndex> indexTask = new Task<TitleIndex>() {
+            @Override
+            protected TitleIndex call() {
+                TitleIndex index = new TitleIndex();
+                index.build(source);
+                return index;
+            }
+        };
         
-        // Courses genres
-        Set<String> courseGenres = new LinkedHashSet<>();
-        courseGenres.add("Programming");
-        courseGenres.add("Design");
-        courseGenres.add("Business");
-        courseGenres.add("Language");
-        genres.put("Courses", courseGenres);
+        indexTask.setOnSucceeded(e -> {
+            if (source != catalog) {
+                // The catalog was reloaded while indexing - index the new snapshot instead
+                buildTitleIndex();
+                return;
+            }
+            titleIndex = indexTask.getValue();
+            startup.mark("title index built");
+            titleIndexSettled = true;
+            markInteractiveWhenReady();
+            // Refresh results typed while indexing
+            if ("Search".equals(currentView)) {
+                loadSearchResults(searchField.getText());
+            }
+        });
+        indexTask.setOnFailed(e -> {
+            System.out.println("Error building search index: " + indexTask.getException());
+            titleIndexSettled = true;
+            markInteractiveWhenReady();
+        });
+        
+        Thread indexThread = new Thread(indexTask, "title-index");
+        indexThread.setDaemon(true);
+        indexThread.start();
     }
     
-    private void seedData() {
-        // MOVIES
-        Map<String, List<Recommendation>> movieData = new HashMap<>();
-
-        // Action Movies
-        List<Recommendation> action = new ArrayList<>();
-        action.add(new Recommendation("John Wick", "images/movies/action/john_wick.jpg", "https://www.imdb.com/title/tt2911666/"));
-        action.add(new Recommendation("The Legend of Maula Jatt", "images/movies/action/maula_jatt.jpg", "https://www.imdb.com/title/tt4139928/"));
-        action.add(new Recommendation("The Fall Guy", "images/movies/action/fall_guy.jpg", "https://www.imdb.com/title/tt1684562/"));
-        action.add(new Recommendation("Mission: Impossible", "images/movies/action/mission_impossible.jpg", "https://www.imdb.com/title/tt9603212/"));
-        action.add(new Recommendation("Extraction II", "images/movies/action/extraction_2.jpg", "https://www.imdb.com/title/tt12263384/"));
-        action.add(new Recommendation("John Wick: Chapter 4", "images/movies/action/john_wick_4.jpg", "https://www.imdb.com/title/tt10366206/"));
-        action.add(new Recommendation("Godzilla Vs Kong", "images/movies/action/godzilla_vs_kong.jpg", "https://www.imdb.com/title/tt5034838/"));
-        action.add(new Recommendation("Fast X", "images/movies/action/fast_x.jpg", "https://www.imdb.com/title/tt5433140/"));
-        movieData.put("Action", action);
-
-        // Comedy Movies
-        List<Recommendation> comedy = new ArrayList<>();
-        comedy.add(new Recommendation("Housefull 5", "images/movies/comedy/housefull_5.jpg", "https://www.imdb.com/title/tt9104736/"));
-        comedy.add(new Recommendation("Jumanji", "images/movies/comedy/jumanji.jpg", "https://www.imdb.com/title/tt2283362/"));
-        comedy.add(new Recommendation("The Hangover", "images/movies/comedy/the_hangover.jpg", "https://www.imdb.com/title/tt1119646/"));
-        comedy.add(new Recommendation("3 Idiots", "images/movies/comedy/3_idiots.jpg", "https://www.imdb.com/title/tt1187043/"));
-        comedy.add(new Recommendation("Deadpool", "images/movies/comedy/deadpool.jpg", "https://www.imdb.com/title/tt1431045/"));
-        comedy.add(new Recommendation("crew", "images/movies/comedy/crew.jpg", "https://www.imdb.com/title/tt21383812/"));
+    // Builds the "More like this" index off the FX thread; ids change on reload, so it is rebuilt then
+    private void buildSimilarityIndex() {
+        Catalog source = catalog;
+        Task<SimilarityIndex> indexTask = new Task<SimilarityIndex>() {
+            @Override
+            protected SimilarityIndex call() {
+                return SimilarityIndex.build(source);
+            }
+        };
+        
+        indexTask.setOnSucceeded(e -> {
+            if (source != catalog) {
+                buildSimilarityIndex();
+                return;
+            }
+            similarityIndex = indexTask.getValue();
+            startup.mark("similarity index built");
+            similarityIndexSettled = true;
+            markInteractiveWhenReady();
+        });
+        indexTask.setOnFailed(e -> {
+            System.out.println("Error building similarity index: " + indexTask.getException());
+            similarityIndexSettled = true;
+            markInteractiveWhenReady();
+        });
+        
+        Thread indexThread = new Thread(indexTask, "similarity-index");
+        indexThread.setDaemon(true);
+        indexThread.start();
+    }
+    
+    // Starts this session's log segment and rebuilds the co-open model from earlier sessions
+    private void openEventLog() {
+        try {
+            eventLog = EventLog.open(Paths.get(EVENT_LOG_DIR));
+        } catch (IOException e) {
+            System.out.println("Event log disabled: " + e.getMessage());
+            pendingOpens = null;
+            return;
+        }
+        logEvent(EventLog.SESSION_START);
+        
+        EventLog log = eventLog;
+        Task<CoOpenModel> replayTask = new Task<CoOpenModel>() {
+            @Override
+            protected CoOpenModel call() throws IOException {
+                CoOpenModel model = new CoOpenModel();
+                log.replayHistory(event -> {
+                    if (event.type == EventLog.SESSION_START) {
+                        model.endSession();
+                    } else if (event.type == EventLog.ITEM_OPEN && event.fields.length == 3) {
+                        model.recordOpen(new Recommendation(event.fields[0], event.fields[1], event.fields[2]));
+                    }
+                });
+                return model;
+            }
+        };
+        
+        replayTask.setOnSucceeded(e -> {
+            CoOpenModel model = replayTask.getValue();
+            model.endSession();
+            for (Recommendation rec : pendingOpens) {
+                model.recordOpen(rec);
+            }
+            pendingOpens = null;
+            coOpenModel = model;
+            startup.mark("event log replayed");
+        });
+        replayTask.setOnFailed(e -> {
+            System.out.println("Error replaying event log: " + replayTask.getException());
+            pendingOpens = null;
+        });
+        
+        Thread replayThread = new Thread(replayTask, "event-replay");
+        replayThread.setDaemon(true);
+        replayThread.start();
+    }
+    
+    // Maps assets.pack, then builds it in the background if it is missing, or rebuilds it if
+    // anything under images/ changed since. Images the pack lacks are read from their files.
+    private void openAssetPack() {
+        Path packFile = Paths.get(ASSET_PACK_FILE);
+        List<String> roots = Arrays.asList("images", "logo.png");
+        boolean opened = false;
+        if (Files.exists(packFile)) {
+            try {
+                useAssetPack(AssetPack.open(packFile));
+                opened = true;
+            } catch (IOException e) {
+                System.out.println("Rebuilding asset pack: " + e.getMessage());
+            }
+        }
+        if (!Files.isDirectory(Paths.get("images"))) {
+            return;
+        }
+        
+        boolean checkFirst = opened;
+        Task<AssetPack> packTask = new Task<AssetPack>() {
+            @Override
+            protected AssetPack call() throws IOException {
+                if (checkFirst && !AssetPack.isStale(Paths.get(""), roots, packFile)) {
+                    return null;
+                }
+                AssetPack.build(Paths.get(""), roots, packFile);
+                return AssetPack.open(packFile);
+            }
+        };
+        packTask.setOnSucceeded(e -> {
+            if (packTask.getValue() != null) {
+                useAssetPack(packTask.getValue());
+            }
+        });
+        packTask.setOnFailed(e -> System.out.println("Error building asset pack: " + packTask.getException()));
+        
+        Thread packThread = new Thread(packTask, "asset-pack");
+        packThread.setDaemon(true);
+        packThread.start();
+    }
+    
+    private void useAssetPack(AssetPack pack) {
+        assetPack = pack;
+        imageLoader.setAssetPack(pack);
+    }
+    
+    private void openProfileStore() {
+        try {
+            profileStore = ProfileStore.open(Paths.get(PROFILE_DIR));
+            seenItems = profileItems(PROFILE_SEEN);
+            favouriteItems = profileItems(PROFILE_FAVOURITE);
+        } catch (IOException e) {
+            System.out.println("Profile disabled: " + e.getMessage());
+        }
+    }
+    
+    // Item keys of one kind for this user
+    private Set<String> profileItems(String kind) throws IOException {
+        String prefix = profileKey(kind, "");
+        Set<String> items = new HashSet<>();
+        for (String key : profileStore.scan(prefix).keySet()) {
+            items.add(key.substring(prefix.length()));
+        }
+        return items;
+    }
+    
+    // Profile keys: user, kind and name separated by NUL, so one user's entries of a kind can be scanned
+    private String profileKey(String kind, String name) {
+        return profileId + '\u0000' + kind + '\u0000' + name;
+    }
+    
+    private byte[] profileGet(String key) {
+        if (profileStore == null) {
+            return null;
+        }
+        try {
+            return profileStore.get(key);
+        } catch (IOException e) {
+            System.out.println("Error reading profile: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private void profilePut(String key, byte[] value) {
+        if (profileStore == null) {
+            return;
+        }
+        try {
+            if (value == null) {
+                profileStore.delete(key);
+            } else {
+                profileStore.put(key, value);
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing profile: " + e.getMessage());
+        }
+    }
+    
+    private boolean isFavourite(Recommendation rec) {
+        return favouriteItems.contains(rec.itemKey());
+    }
+    
+    private void setFavourite(Recommendation rec, boolean favourite) {
+        if (favourite) {
+            favouriteItems.add(rec.itemKey());
+        } else {
+            favouriteItems.remove(rec.itemKey());
+        }
+        profilePut(profileKey(PROFILE_FAVOURITE, rec.itemKey()), favourite ? longBytes(System.currentTimeMillis()) : null);
+    }
+    
+    private boolean isSeen(Recommendation rec) {
+        return seenItems.contains(rec.itemKey());
+    }
+    
+    // Learned preference: how often each genre has been opened
+    private void countGenreOpen(String category, String genre) {
+        String key = profileKey(PROFILE_GENRE_OPENS, Catalog.genreKey(category, genre));
+        byte[] previous = profileGet(key);
+        long count = previous == null ? 0 : ByteBuffer.wrap(previous).getLong();
+        profilePut(key, longBytes(count + 1));
+    }
+    
+    private static byte[] longBytes(long value) {
+        return ByteBuffer.allocate(8).putLong(value).array();
+    }
+    
+    // Never blocks: the event is handed to the log's writer thread
+    private void logEvent(byte type, String... fields) {
+        if (eventLog != null) {
+            eventLog.record(type, fields);
+        }
+    }
+    
+    // Watches the feed directory and publishes a new catalog snapshot on change
+    private void startCatalogReloader() {
+        Path feedDir = Paths.get(CATALOG_FEED_DIR);
+        if (!Files.isDirectory(feedDir)) {
+            return;
+        }
+        catalogReloader = new CatalogReloader(feedDir, Paths.get(CATALOG_FILE), catalog, (next, changedGenres) -> {
+            // The index is updated in place, so detach it on the FX thread first (searches
+            // only run there) and bring it forward here without blocking the UI
+            TitleIndex index = detachTitleIndex();
+            if (index != null) {
+                index.update(next, changedGenres);
+            }
+            Platform.runLater(() -> {
+                if (index != null && titleIndex == null) {
+                    titleIndex = index;
+                }
+                applyCatalogSnapshot(next, changedGenres);
+            });
+        });
+        catalogReloader.start();
+    }
+    
+    private TitleIndex detachTitleIndex() {
+        AtomicReference<TitleIndex> detached = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            detached.set(titleIndex);
+            titleIndex = null;
+            done.countDown();
+        });
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return detached.get();
+    }
+    
+    // Publishes a reloaded catalog and rebuilds the current page only if it shows a changed genre
+    private void applyCatalogSnapshot(Catalog next, Set<String> changedGenres) {
+        catalog = next;
+        // Vector ids are catalog ids, which shift when genres change size
+        similarityIndex = null;
+        buildSimilarityIndex();
+        // Only pages showing a changed genre go stale: that genre's page and its category's
+        // page (genre counts and first posters). The home page shows no catalog data, and
+        // other cached pages read the previous snapshot, whose items there are the same.
+        for (String key : changedGenres) {
+            String category = Catalog.categoryOf(key);
+            pageCache.remove(PageCache.key("Genre", category, Catalog.genreOf(key)));
+            pageCache.remove(PageCache.key("Category", category, ""));
+        }
+        System.out.println("Catalog reloaded: " + changedGenres.size() + " genre(s) changed");
+        
+        switch (currentView) {
+            case "Category":
+                for (String key : changedGenres) {
+                    if (Catalog.categoryOf(key).equals(currentCategory)) {
+                        loadCategoryGenres(currentCategory);
+                        break;
+                    }
+                }
+                break;
+            case "Genre":
+                if (changedGenres.contains(Catalog.genreKey(currentCategory, currentGenre))) {
+                    loadGenreRecommendations(currentCategory, currentGenre);
+                }
+                break;
+            case "Search":
+                loadSearchResults(searchField.getText());
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private void seedGenres(Map<String, Set<String>> genres) {
+        // Movies genres
+        Set<String> movieGenres = new LinkedHashSet<>();
+        movieGenres.add("Action");
+        movieGenres.add("Comedy");
+        movieGenres.add("Sci-Fi");
+        movieGenres.add("Romance");
+        genres.put("Movies", movieGenres);
+        
+        // Books genres
+        Set<String> bookGenres = new LinkedHashSet<>();
+        bookGenres.add("Mystery");
+        bookGenres.add("Fantasy");
+        bookGenres.add("Thriller");
+        bookGenres.add("Non-Fiction");
+        genres.put("Books", bookGenres);
+        
+        // Games genres
+        Set<String> gameGenres = new LinkedHashSet<>();
+        gameGenres.add("Adventure");
+        gameGenres.add("Racing");
+        gameGenres.add("Shooter");
+        gameGenres.add("Strategy");
+        genres.put("Games", gameGenres);
+        
+        // Anime genres
+        Set<String> animeGenres = new LinkedHashSet<>();
+        animeGenres.add("Shonen");
+        animeGenres.add("Seinen");
+        animeGenres.add("Romance");
+        animeGenres.add("Slice of Life");
+        genres.put("Anime", animeGenres);
+        
+        // Courses genres
+        Set<String> courseGenres = new LinkedHashSet<>();
+        courseGenres.add("Programming");
+        courseGenres.add("Design");
+        courseGenres.add("Business");
+        courseGenres.add("Language");
+        genres.put("Courses", courseGenres);
+    }
+    
+    private void seedData(Map<String, Map<String, List<Recommendation>>> data) {
+        // MOVIES
+        Map<String, List<Recommendation>> movieData = new HashMap<>();
+
+        // Action Movies
+        List<Recommendation> action = new ArrayList<>();
+        action.add(new Recommendation("John Wick", "images/movies/action/john_wick.jpg", "https://www.imdb.com/title/tt2911666/"));
+        action.add(new Recommendation("The Legend of Maula Jatt", "images/movies/action/maula_jatt.jpg", "https://www.imdb.com/title/tt4139928/"));
+        action.add(new Recommendation("The Fall Guy", "images/movies/action/fall_guy.jpg", "https://www.imdb.com/title/tt1684562/"));
+        action.add(new Recommendation("Mission: Impossible", "images/movies/action/mission_impossible.jpg", "https://www.imdb.com/title/tt9603212/"));
+        action.add(new Recommendation("Extraction II", "images/movies/action/extraction_2.jpg", "https://www.imdb.com/title/tt12263384/"));
+        action.add(new Recommendation("John Wick: Chapter 4", "images/movies/action/john_wick_4.jpg", "https://www.imdb.com/title/tt10366206/"));
+        action.add(new Recommendation("Godzilla Vs Kong", "images/movies/action/godzilla_vs_kong.jpg", "https://www.imdb.com/title/tt5034838/"));
+        action.add(new Recommendation("Fast X", "images/movies/action/fast_x.jpg", "https://www.imdb.com/title/tt5433140/"));
+        movieData.put("Action", action);
+
+        // Comedy Movies
+        List<Recommendation> comedy = new ArrayList<>();
+        comedy.add(new Recommendation("Housefull 5", "images/movies/comedy/housefull_5.jpg", "https://www.imdb.com/title/tt9104736/"));
+        comedy.add(new Recommendation("Jumanji", "images/movies/comedy/jumanji.jpg", "https://www.imdb.com/title/tt2283362/"));
+        comedy.add(new Recommendation("The Hangover", "images/movies/comedy/the_hangover.jpg", "https://www.imdb.com/title/tt1119646/"));
+        comedy.add(new Recommendation("3 Idiots", "images/movies/comedy/3_idiots.jpg", "https://www.imdb.com/title/tt1187043/"));
+        comedy.add(new Recommendation("Deadpool", "images/movies/comedy/deadpool.jpg", "https://www.imdb.com/title/tt1431045/"));
+        comedy.add(new Recommendation("crew", "images/movies/comedy/crew.jpg", "https://www.imdb.com/title/tt21383812/"));
         comedy.add(new Recommendation("Na Baligh Afraad", "images/movies/comedy/Na Baligh Afraad.jpg", "https://www.imdb.com/title/tt32552818/"));
         comedy.add(new Recommendation("Ant-Man", "images/movies/comedy/ant_man.jpg", "https://www.imdb.com/title/tt0478970/"));
         movieData.put("Comedy", comedy);
@@ -1168,6 +2253,11 @@ public class SmartLifeRecommenderFX extends Application {
     
     // HOME PAGE - Category Selection (NO LOADING SCREEN, NO SCROLL)
     private void loadHomeContentDirect() {
+        cancelPageLoad();
+        if (showCachedPage("Home", "", "")) {
+            return;
+        }
+        markOperation("build Home page");
         contentArea.getChildren().clear();
         currentView = "Home";
         
@@ -1185,6 +2275,8 @@ public class SmartLifeRecommenderFX extends Application {
         // Decorative section - takes remaining 10%
         VBox decorativeSection = createFixedDecorativeSection(availableHeight * 0.1);
         contentArea.getChildren().add(decorativeSection);
+        
+        cachePage("Home", "", "", () -> { }, null);
     }
     
 
@@ -1220,10 +2312,7 @@ public class SmartLifeRecommenderFX extends Application {
 
         // Enhanced title with responsive font size based on available height
         Label titleLabel = new Label("Smart Life Recommender");
-        titleLabel.fontProperty().bind(Bindings.createObjectBinding(() -> {
-            double fontSize = Math.max(18, Math.min(maxHeight * 0.12, 36));
-            return Font.font("Segoe UI", FontWeight.BOLD, fontSize);
-        }, primaryStage.widthProperty()));
+        titleLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, Math.max(18, Math.min(maxHeight * 0.12, 36))));
         titleLabel.setTextFill(TEXT_COLOR);
 
         // Add glow effect to title
@@ -1233,20 +2322,14 @@ public class SmartLifeRecommenderFX extends Application {
 
         // Enhanced subtitle
         Label subtitleLabel = new Label("Discover your next favorite movie, book, game, anime, or course");
-        subtitleLabel.fontProperty().bind(Bindings.createObjectBinding(() -> {
-            double fontSize = Math.max(9, Math.min(maxHeight * 0.06, 14));
-            return Font.font("Segoe UI", FontWeight.NORMAL, fontSize);
-        }, primaryStage.widthProperty()));
+        subtitleLabel.setFont(Font.font("Segoe UI", FontWeight.NORMAL, Math.max(9, Math.min(maxHeight * 0.06, 14))));
         subtitleLabel.setTextFill(Color.rgb(200, 200, 200));
         subtitleLabel.setWrapText(true);
         subtitleLabel.setAlignment(Pos.CENTER);
 
         // Enhanced description with red theme
         Label descLabel = new Label("🔥 Powered by intelligent recommendations 🔥");
-        descLabel.fontProperty().bind(Bindings.createObjectBinding(() -> {
-            double fontSize = Math.max(7, Math.min(maxHeight * 0.05, 12));
-            return Font.font("Segoe UI", FontWeight.NORMAL, fontSize);
-        }, primaryStage.widthProperty()));
+        descLabel.setFont(Font.font("Segoe UI", FontWeight.NORMAL, Math.max(7, Math.min(maxHeight * 0.05, 12))));
         descLabel.setTextFill(RED_LIGHT);
 
         // Add pulsing animation to description
@@ -1255,7 +2338,7 @@ public class SmartLifeRecommenderFX extends Application {
         pulse.setToValue(1.0);
         pulse.setCycleCount(FadeTransition.INDEFINITE);
         pulse.setAutoReverse(true);
-        pulse.play();
+        ViewLifecycle.animate(descLabel, pulse);
 
         heroSection.getChildren().addAll(titleLabel, subtitleLabel, descLabel);
         return heroSection;
@@ -1273,10 +2356,7 @@ public class SmartLifeRecommenderFX extends Application {
 
         // Enhanced section title
         Label sectionTitle = new Label("🎯 Choose Your Adventure");
-        sectionTitle.fontProperty().bind(Bindings.createObjectBinding(() -> {
-            double fontSize = Math.max(14, Math.min(maxHeight * 0.06, 22));
-            return Font.font("Segoe UI", FontWeight.BOLD, fontSize);
-        }, primaryStage.widthProperty()));
+        sectionTitle.setFont(Font.font("Segoe UI", FontWeight.BOLD, Math.max(14, Math.min(maxHeight * 0.06, 22))));
         sectionTitle.setTextFill(TEXT_COLOR);
 
         // Add glow effect
@@ -1291,10 +2371,10 @@ public class SmartLifeRecommenderFX extends Application {
         // Calculate available space for grid - MAKE CARDS BIGGER
         double gridHeight = maxHeight - spacing - 40; // Subtract title and spacing
         double cardHeight = Math.max(100, gridHeight * 0.4); // Increased from 0.25 to 0.4
-        double cardWidth = Math.max(160, primaryStage.getWidth() * 0.16); // Increased from 0.12 to 0.16
+        double cardWidth = Math.max(160, layoutPlan.windowWidth * 0.16); // Increased from 0.12 to 0.16
 
         // Responsive gaps
-        double gap = Math.max(10, primaryStage.getWidth() * 0.015);
+        double gap = Math.max(10, layoutPlan.windowWidth * 0.015);
         categoryGrid.setHgap(gap);
         categoryGrid.setVgap(gap);
 
@@ -1334,22 +2414,9 @@ public class SmartLifeRecommenderFX extends Application {
         card.setPadding(new Insets(padding));
         card.setSpacing(spacing);
 
-        // Enhanced gradient background with red theme
-        LinearGradient cardGradient = new LinearGradient(
-            0, 0, 1, 1, true, CycleMethod.NO_CYCLE,
-            new Stop(0, Color.rgb(45, 45, 55)),
-            new Stop(0.5, Color.rgb(35, 35, 45)),
-            new Stop(1, Color.rgb(25, 25, 35))
-        );
-        BackgroundFill cardFill = new BackgroundFill(cardGradient, new CornerRadii(20), null);
-        card.setBackground(new Background(cardFill));
-
-        // Enhanced shadow
-        DropShadow cardShadow = new DropShadow();
-        cardShadow.setColor(Color.rgb(0, 0, 0, 0.4));
-        cardShadow.setRadius(15);
-        cardShadow.setOffsetY(8);
-        card.setEffect(cardShadow);
+        // Gradient background with red hover theme (see .category-card) and shared shadow
+        card.getStyleClass().add("category-card");
+        card.setEffect(CATEGORY_CARD_SHADOW);
 
         // Responsive emoji size - BIGGER
         Label emojiLabel = new Label(emoji);
@@ -1373,39 +2440,15 @@ public class SmartLifeRecommenderFX extends Application {
 
         card.getChildren().addAll(emojiLabel, titleLabel, descLabel);
 
-        // Enhanced hover effects with red theme
+        // Enhanced hover effects - the background follows :hover in the stylesheet
         card.setOnMouseEntered(e -> {
-            LinearGradient hoverGradient = new LinearGradient(
-                0, 0, 1, 1, true, CycleMethod.NO_CYCLE,
-                new Stop(0, Color.rgb(229, 9, 20, 0.8)),
-                new Stop(0.5, Color.rgb(255, 100, 100, 0.6)),
-                new Stop(1, Color.rgb(229, 9, 20, 0.8))
-            );
-            BackgroundFill hoverFill = new BackgroundFill(hoverGradient, new CornerRadii(20), null);
-            card.setBackground(new Background(hoverFill));
-
-            // Scale animation
-            ScaleTransition scaleUp = new ScaleTransition(Duration.millis(200), card);
-            scaleUp.setToX(1.05);
-            scaleUp.setToY(1.05);
-            scaleUp.play();
-
-            // Enhanced glow
-            Glow hoverGlow = new Glow();
-            hoverGlow.setLevel(0.6);
-            card.setEffect(hoverGlow);
+            playHoverScale(card, 1.05);
+            card.setEffect(CARD_HOVER_GLOW);
         });
 
         card.setOnMouseExited(e -> {
-            card.setBackground(new Background(cardFill));
-
-            // Scale back
-            ScaleTransition scaleDown = new ScaleTransition(Duration.millis(200), card);
-            scaleDown.setToX(1.0);
-            scaleDown.setToY(1.0);
-            scaleDown.play();
-
-            card.setEffect(cardShadow);
+            playHoverScale(card, 1.0);
+            card.setEffect(CATEGORY_CARD_SHADOW);
         });
 
         // Click handler
@@ -1414,6 +2457,9 @@ public class SmartLifeRecommenderFX extends Application {
             loadCategoryGenres(category);
         });
 
+        // Hovering warms the first row of every genre in the category
+        installHoverPrefetch(card, category, null, 4);
+
         return card;
     }
 
@@ -1429,10 +2475,7 @@ public class SmartLifeRecommenderFX extends Application {
 
         // Decorative separator with responsive width
         Rectangle separator = new Rectangle();
-        separator.widthProperty().bind(Bindings.createDoubleBinding(() -> {
-            double width = primaryStage.getWidth();
-            return Math.max(200, Math.min(400, width * 0.3));
-        }, primaryStage.widthProperty()));
+        separator.setWidth(Math.max(200, Math.min(400, layoutPlan.windowWidth * 0.3)));
         separator.setHeight(Math.max(2, maxHeight * 0.15));
 
         LinearGradient sepGradient = new LinearGradient(
@@ -1455,75 +2498,283 @@ public class SmartLifeRecommenderFX extends Application {
 
     // CATEGORY PAGE -  Genre Selection (NO SCROLL)
     private void loadCategoryGenres(String category) {
-        showFixedLoadingAnimation();
-
-        Task<Void> loadingTask = new Task<Void>() {
-            @Override
-            protected Void call() throws Exception {
-                Thread.sleep(1000);
-                return null;
+        cancelPageLoad();
+        if (showCachedPage("Category", category, "")) {
+            return;
+        }
+        Catalog snapshot = catalog;
+        loadPage(() -> {
+            // Read one snapshot so every card reflects the same catalog version
+            Map<String, Integer> genreCounts = new LinkedHashMap<>();
+            for (String genre : snapshot.genres(category)) {
+                genreCounts.put(genre, snapshot.count(category, genre));
             }
-        };
+            return new CategoryPage(category, genreCounts, firstPageImagePaths(snapshot, category));
+        }, this::showCategoryPage);
+    }
+    
+    // Builds the category page from data already prepared; a resize rebuilds it from the same data
+    private void showCategoryPage(CategoryPage page) {
+        markOperation("build Category page");
+        contentArea.getChildren().clear();
+        currentView = "Category";
 
-        loadingTask.setOnSucceeded(e -> {
-            Platform.runLater(() -> {
-                contentArea.getChildren().clear();
-                currentView = "Category";
+        // Calculate available height for content
+        double availableHeight = contentArea.getPrefHeight();
 
-                // Calculate available height for content
-                double availableHeight = contentArea.getPrefHeight();
+        // Enhanced header - takes 25% of available height
+        VBox headerSection = createFixedCategoryHeader(page.category, availableHeight * 0.25);
+        contentArea.getChildren().add(headerSection);
 
-                // Enhanced header - takes 25% of available height
-                VBox headerSection = createFixedCategoryHeader(category, availableHeight * 0.25);
-                contentArea.getChildren().add(headerSection);
+        // Enhanced genre selection - takes 75% of available height
+        VBox genreSection = createFixedGenreSection(page.category, page.genreCounts, availableHeight * 0.75);
+        contentArea.getChildren().add(genreSection);
 
-                // Enhanced genre selection - takes 75% of available height
-                VBox genreSection = createFixedGenreSection(category, availableHeight * 0.75);
-                contentArea.getChildren().add(genreSection);
-            });
+        Runnable onShow = () -> {
+            shownCategoryPage = page;
+            prefetchGenreImages(page.imagePaths);
+        };
+        onShow.run();
+        cachePage("Category", page.category, "", onShow, null);
+    }
+    
+    // Genre counts and first-page posters of a category, read off the FX thread
+    private static final class CategoryPage {
+        final String category;
+        final Map<String, Integer> genreCounts;
+        final List<String> imagePaths;
+        
+        CategoryPage(String category, Map<String, Integer> genreCounts, List<String> imagePaths) {
+            this.category = category;
+            this.genreCounts = genreCounts;
+            this.imagePaths = imagePaths;
+        }
+    }
+    
+    // Prepares a page on a background thread and shows it on the FX thread once ready. The
+    // loading animation only appears if preparation outlasts LOADING_INDICATOR_DELAY_MS, and
+    // any later navigation cancels the page still in preparation so it is never shown. If
+    // preparation fails, an error with a retry button replaces the animation.
+    private <T> void loadPage(Callable<T> prepare, Consumer<T> show) {
+        cancelPageLoad();
+        
+        Task<T> task = new Task<T>() {
+            @Override
+            protected T call() throws Exception {
+                return prepare.call();
+            }
+        };
+        PauseTransition indicatorDelay = new PauseTransition(Duration.millis(LOADING_INDICATOR_DELAY_MS));
+        indicatorDelay.setOnFinished(e -> showFixedLoadingAnimation());
+        
+        task.setOnSucceeded(e -> {
+            // A task that finished just before being cancelled still reports success
+            if (pageLoad != task) {
+                return;
+            }
+            indicatorDelay.stop();
+            pageLoad = null;
+            show.accept(task.getValue());
         });
-
-        new Thread(loadingTask).start();
+        task.setOnFailed(e -> {
+            if (pageLoad != task) {
+                return;
+            }
+            indicatorDelay.stop();
+            pageLoad = null;
+            System.out.println("Error loading page: " + task.getException().getMessage());
+            showPageLoadError(() -> loadPage(prepare, show));
+        });
+        
+        pageLoad = task;
+        loadingIndicatorDelay = indicatorDelay;
+        indicatorDelay.play();
+        Thread loadThread = new Thread(task, "page-load");
+        loadThread.setDaemon(true);
+        loadThread.start();
     }
-
-    private VBox createFixedCategoryHeader(String category, double maxHeight) {
-        VBox header = new VBox();
-        header.setMaxHeight(maxHeight);
-        header.setPrefHeight(maxHeight);
-        header.setAlignment(Pos.TOP_LEFT);
-
-        // Responsive spacing and padding based on allocated height
-        double padding = Math.max(10, maxHeight * 0.1);
-        double spacing = Math.max(8, maxHeight * 0.15);
-
-        header.setPadding(new Insets(padding, 0, padding, 0));
-        header.setSpacing(spacing);
-
-        // Enhanced title with emoji and responsive font
-        String emoji = getEmojiForCategory(category);
-        Label titleLabel = new Label(emoji + " " + category + " Genres");
-        double titleSize = Math.max(16, maxHeight * 0.28);
-        titleLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, titleSize));
-        titleLabel.setTextFill(TEXT_COLOR);
-
-        // Add glow effect
-        Glow titleGlow = new Glow();
-        titleGlow.setLevel(0.4);
-        titleLabel.setEffect(titleGlow);
-
-        // Enhanced subtitle with responsive font
-        Label subtitleLabel = new Label("Choose a genre to explore amazing recommendations");
-        double subtitleSize = Math.max(9, maxHeight * 0.12);
-        subtitleLabel.setFont(Font.font("Segoe UI", FontWeight.NORMAL, subtitleSize));
-        subtitleLabel.setTextFill(Color.rgb(190, 190, 190));
-
-        header.getChildren().addAll(titleLabel, subtitleLabel);
-        return header;
+    
+    // Called by every navigation so a slower page cannot replace the one just opened
+    private void cancelPageLoad() {
+        if (pageLoad != null) {
+            pageLoad.cancel();
+            pageLoad = null;
+        }
+        if (loadingIndicatorDelay != null) {
+            loadingIndicatorDelay.stop();
+            loadingIndicatorDelay = null;
+        }
     }
-
-    private String getEmojiForCategory(String category) {
-        String emoji;
-        switch (category) {
+    
+    // Window size bucket plus the sidebar, which narrows the cards
+    private String layoutBucket() {
+        return layoutPlan.bucket() + (layoutPlan.sidebarVisible ? "+sidebar" : "");
+    }
+    
+    // Resize events only mark the layout dirty; one plan is computed on the next frame
+    private void installLayoutEngine() {
+        layoutPulse = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                layoutScheduled = false;
+                applyLayout();
+            }
+        };
+        relayoutQuiet = new PauseTransition(Duration.millis(RELAYOUT_QUIET_MS));
+        relayoutQuiet.setOnFinished(e -> relayoutCurrentPage());
+        onWindowResize(obs -> scheduleLayout());
+        applyLayout();
+        settledLayoutBucket = layoutBucket();
+    }
+    
+    // Window size listeners are registered here so the soak can check none pile up
+    private void onWindowResize(InvalidationListener listener) {
+        primaryStage.widthProperty().addListener(listener);
+        primaryStage.heightProperty().addListener(listener);
+        windowListeners += 2;
+    }
+    
+    private void scheduleLayout() {
+        if (!layoutScheduled) {
+            layoutScheduled = true;
+            layoutPulse.start();
+        }
+        relayoutQuiet.playFromStart();
+    }
+    
+    // Applies the current window size to the content area in place
+    private void applyLayout() {
+        markOperation("resize");
+        double width = primaryStage.getWidth();
+        double height = primaryStage.getHeight();
+        // The stage has no size until it is first shown
+        LayoutPlan plan = new LayoutPlan(Double.isNaN(width) ? WINDOW_WIDTH : width,
+            Double.isNaN(height) ? WINDOW_HEIGHT : height, sidebarVisible);
+        layoutPlan = plan;
+        
+        contentArea.setPrefWidth(plan.contentWidth);
+        contentArea.setPrefHeight(plan.contentHeight);
+        if (contentArea.getPadding().getTop() != plan.padding) {
+            contentArea.setPadding(new Insets(plan.padding));
+        }
+        contentArea.setSpacing(plan.spacing);
+    }
+    
+    // Once resizing pauses, relays out or rebuilds the page if the window moved into another layout bucket
+    private void relayoutCurrentPage() {
+        String bucket = layoutBucket();
+        if (bucket.equals(settledLayoutBucket)) {
+            return;
+        }
+        settledLayoutBucket = bucket;
+        if (pageLoad != null) {
+            // The page being prepared reads the new plan when it is built
+            return;
+        }
+        PageCache.Page page = shownPage;
+        if (page != null && page.relayout != null) {
+            // Grid pages keep their nodes, scroll position and results
+            markOperation("relayout " + currentView + " page");
+            page.relayout.accept(layoutPlan);
+            page.layoutBucket = bucket;
+            return;
+        }
+        // Pages of a few fixed tiles are built again, from data already at hand
+        markOperation("rebuild " + currentView + " page");
+        switch (currentView) {
+            case "Home":
+                loadHomeContentDirect();
+                break;
+            case "Team":
+                loadOurTeamPage();
+                break;
+            case "Category":
+                if (shownCategoryPage != null && shownCategoryPage.category.equals(currentCategory)) {
+                    showCategoryPage(shownCategoryPage);
+                } else {
+                    loadCategoryGenres(currentCategory);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+    
+    // Swaps a previously built page back in; false when the page has to be built
+    private boolean showCachedPage(String view, String category, String genre) {
+        String key = PageCache.key(view, category, genre);
+        PageCache.Page page = pageCache.get(key);
+        if (page == null) {
+            return false;
+        }
+        String bucket = layoutBucket();
+        if (!page.layoutBucket.equals(bucket)) {
+            if (page.relayout == null) {
+                pageCache.remove(key);
+                return false;
+            }
+            markOperation("relayout cached " + view + " page");
+            page.relayout.accept(layoutPlan);
+            page.layoutBucket = bucket;
+        }
+        markOperation("show cached " + view + " page");
+        contentArea.getChildren().setAll(page.nodes);
+        currentView = view;
+        shownPage = page;
+        page.onShow.run();
+        return true;
+    }
+    
+    // Remembers the page just built in contentArea; onShow refreshes its live parts when it returns
+    private void cachePage(String view, String category, String genre, Runnable onShow, Consumer<LayoutPlan> relayout) {
+        showPage(onShow, relayout);
+        pageCache.put(PageCache.key(view, category, genre), shownPage);
+    }
+    
+    // Records the page just built in contentArea as the one on screen
+    private void showPage(Runnable onShow, Consumer<LayoutPlan> relayout) {
+        shownPage = new PageCache.Page(new ArrayList<>(contentArea.getChildren()), onShow, relayout, layoutBucket());
+    }
+
+    private VBox createFixedCategoryHeader(String category, double maxHeight) {
+        VBox header = new VBox();
+        header.setMaxHeight(maxHeight);
+        header.setPrefHeight(maxHeight);
+        header.setAlignment(Pos.TOP_LEFT);
+
+        // Responsive spacing and padding based on allocated height
+        double padding = Math.max(10, maxHeight * 0.1);
+        double spacing = Math.max(8, maxHeight * 0.15);
+
+        header.setPadding(new Insets(padding, 0, padding, 0));
+        header.setSpacing(spacing);
+
+        // Enhanced title with emoji and responsive font
+        String emoji = getEmojiForCategory(category);
+        Label titleLabel = new Label(emoji + " " + category + " Genres");
+        double titleSize = Math.max(16, maxHeight * 0.28);
+        titleLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, titleSize));
+        titleLabel.setTextFill(TEXT_COLOR);
+
+        // Add glow effect
+        Glow titleGlow = new Glow();
+        titleGlow.setLevel(0.4);
+        titleLabel.setEffect(titleGlow);
+
+        // Enhanced subtitle with responsive font
+        Label subtitleLabel = new Label("Choose a genre to explore amazing recommendations");
+        double subtitleSize = Math.max(9, maxHeight * 0.12);
+        subtitleLabel.setFont(Font.font("Segoe UI", FontWeight.NORMAL, subtitleSize));
+        subtitleLabel.setTextFill(Color.rgb(190, 190, 190));
+
+        header.getChildren().addAll(titleLabel, subtitleLabel);
+        return header;
+    }
+
+    private String getEmojiForCategory(String category) {
+        String emoji;
+        switch (category) {
             case "Movies":
                 emoji = "🎬";
                 break;
@@ -1546,7 +2797,7 @@ public class SmartLifeRecommenderFX extends Application {
         return emoji;
     }
 
-    private VBox createFixedGenreSection(String category, double maxHeight) {
+    private VBox createFixedGenreSection(String category, Map<String, Integer> genreCounts, double maxHeight) {
         VBox section = new VBox();
         section.setAlignment(Pos.CENTER);
         section.setMaxHeight(maxHeight);
@@ -1562,18 +2813,17 @@ public class SmartLifeRecommenderFX extends Application {
 
         // Calculate card dimensions based on available space
         double cardHeight = Math.max(60, maxHeight * 0.25);
-        double cardWidth = Math.max(140, primaryStage.getWidth() * 0.15);
+        double cardWidth = Math.max(140, layoutPlan.windowWidth * 0.15);
 
         // Responsive gaps
-        double gap = Math.max(15, primaryStage.getWidth() * 0.02);
+        double gap = Math.max(15, layoutPlan.windowWidth * 0.02);
         genreGrid.setHgap(gap);
         genreGrid.setVgap(gap);
 
-        Set<String> categoryGenres = genres.get(category);
-        if (categoryGenres != null) {
+        if (!genreCounts.isEmpty()) {
             int index = 0;
-            for (String genre : categoryGenres) {
-                VBox genreCard = createFixedGenreCard(category, genre, cardWidth, cardHeight);
+            for (Map.Entry<String, Integer> genreCount : genreCounts.entrySet()) {
+                VBox genreCard = createFixedGenreCard(category, genreCount.getKey(), genreCount.getValue(), cardWidth, cardHeight);
                 int col = index % 2;
                 int row = index / 2;
                 genreGrid.add(genreCard, col, row);
@@ -1585,7 +2835,7 @@ public class SmartLifeRecommenderFX extends Application {
         return section;
     }
 
-    private VBox createFixedGenreCard(String category, String genre, double cardWidth, double cardHeight) {
+    private VBox createFixedGenreCard(String category, String genre, int count, double cardWidth, double cardHeight) {
         VBox card = new VBox();
         card.setAlignment(Pos.CENTER);
         card.setCursor(Cursor.HAND);
@@ -1600,22 +2850,9 @@ public class SmartLifeRecommenderFX extends Application {
         card.setPadding(new Insets(padding));
         card.setSpacing(spacing);
 
-        // Enhanced gradient background with red theme
-        LinearGradient cardGradient = new LinearGradient(
-            0, 0, 1, 1, true, CycleMethod.NO_CYCLE,
-            new Stop(0, Color.rgb(50, 50, 60)),
-            new Stop(0.5, Color.rgb(40, 40, 50)),
-            new Stop(1, Color.rgb(30, 30, 40))
-        );
-        BackgroundFill cardFill = new BackgroundFill(cardGradient, new CornerRadii(20), null);
-        card.setBackground(new Background(cardFill));
-
-        // Enhanced shadow
-        DropShadow cardShadow = new DropShadow();
-        cardShadow.setColor(Color.rgb(0, 0, 0, 0.5));
-        cardShadow.setRadius(12);
-        cardShadow.setOffsetY(6);
-        card.setEffect(cardShadow);
+        // Gradient background with red hover theme (see .genre-card) and shared shadow
+        card.getStyleClass().add("genre-card");
+        card.setEffect(GENRE_CARD_SHADOW);
 
         // Enhanced genre label with responsive font
         Label genreLabel = new Label(genre);
@@ -1623,13 +2860,7 @@ public class SmartLifeRecommenderFX extends Application {
         genreLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, genreSize));
         genreLabel.setTextFill(TEXT_COLOR);
 
-        // Get count and create enhanced count label
-        Map<String, List<Recommendation>> categoryData = data.get(category);
-        int count = 0;
-        if (categoryData != null && categoryData.containsKey(genre)) {
-            count = categoryData.get(genre).size();
-        }
-
+        // Create enhanced count label
         Label countLabel = new Label("🔥 " + count + " recommendations");
         double countSize = Math.max(8, cardHeight * 0.1);
         countLabel.setFont(Font.font("Segoe UI", FontWeight.NORMAL, countSize));
@@ -1637,100 +2868,141 @@ public class SmartLifeRecommenderFX extends Application {
 
         card.getChildren().addAll(genreLabel, countLabel);
 
-        // Enhanced hover effects with red theme
+        // Enhanced hover effects - the background follows :hover in the stylesheet
         card.setOnMouseEntered(e -> {
-            LinearGradient hoverGradient = new LinearGradient(
-                0, 0, 1, 1, true, CycleMethod.NO_CYCLE,
-                new Stop(0, Color.rgb(229, 9, 20, 0.7)),
-                new Stop(0.5, Color.rgb(255, 100, 100, 0.5)),
-                new Stop(1, Color.rgb(229, 9, 20, 0.7))
-            );
-            BackgroundFill hoverFill = new BackgroundFill(hoverGradient, new CornerRadii(20), null);
-            card.setBackground(new Background(hoverFill));
-
-            // Scale animation
-            ScaleTransition scaleUp = new ScaleTransition(Duration.millis(200), card);
-            scaleUp.setToX(1.08);
-            scaleUp.setToY(1.08);
-            scaleUp.play();
-
-            // Enhanced glow
-            Glow hoverGlow = new Glow();
-            hoverGlow.setLevel(0.5);
-            card.setEffect(hoverGlow);
+            playHoverScale(card, 1.08);
+            card.setEffect(GENRE_CARD_HOVER_GLOW);
         });
 
         card.setOnMouseExited(e -> {
-            card.setBackground(new Background(cardFill));
-
-            ScaleTransition scaleDown = new ScaleTransition(Duration.millis(200), card);
-            scaleDown.setToX(1.0);
-            scaleDown.setToY(1.0);
-            scaleDown.play();
-
-            card.setEffect(cardShadow);
+            playHoverScale(card, 1.0);
+            card.setEffect(GENRE_CARD_SHADOW);
         });
 
         // Click handler
         card.setOnMouseClicked(e -> {
+            logEvent(EventLog.GENRE_OPEN, category, genre);
+            countGenreOpen(category, genre);
             currentGenre = genre;
             loadGenreRecommendations(category, genre);
         });
 
+        // Hovering warms the whole first page so the genre opens with its posters ready
+        installHoverPrefetch(card, category, genre, SEARCH_RESULT_LIMIT);
+
         return card;
     }
 
     // GENRE PAGE - Recommendations (NO SCROLL)
     private void loadGenreRecommendations(String category, String genre) {
-        showFixedLoadingAnimation();
+        cancelPageLoad();
+        if (showCachedPage("Genre", category, genre)) {
+            return;
+        }
+        Catalog snapshot = catalog;
+        int firstPage = (GRID_VISIBLE_ROWS + 2 * GRID_OVERSCAN_ROWS) * GRID_COLUMNS;
+        loadPage(() -> preloaded(snapshot.recommendations(category, genre), firstPage), recommendations -> {
+            GenrePage page = genrePage;
+            if (page != null) {
+                // Keep the last genre page's nodes and only swap the data, resizing them first
+                // if the window changed since. The page moves to the new genre's cache slot.
+                markOperation("rebind Genre page");
+                pageCache.remove(PageCache.key("Genre", page.category, page.genre));
+                if (!page.layoutBucket.equals(layoutBucket())) {
+                    page.relayout(layoutPlan);
+                }
+                page.bind(category, genre, recommendations);
+            } else {
+                markOperation("build Genre page");
+                page = new GenrePage(category, genre, recommendations);
+                genrePage = page;
+            }
+            contentArea.getChildren().setAll(page.nodes);
+            currentView = "Genre";
+            
+            // Opens since the page was built change the related row, so it is refilled on every show
+            GenrePage shown = page;
+            Runnable onShow = () -> {
+                relatedRow = shown.relatedRow;
+                fillRelatedRow(null, shown.recommendations);
+            };
+            onShow.run();
+            cachePage("Genre", category, genre, onShow, shown::relayout);
+        });
+    }
+    
+    // Header, grid and related row of a genre page. Switching genres rebinds the title and
+    // the grid's items instead of building the page again, and a resize relays it out.
+    private final class GenrePage {
+        String layoutBucket = layoutBucket();
+        final List<Node> nodes = new ArrayList<>();
+        final Label titleLabel;
+        final RecommendationGrid grid;
+        final VBox relatedRow;
+        String category;
+        String genre;
+        List<Recommendation> recommendations;
+        
+        GenrePage(String category, String genre, List<Recommendation> recommendations) {
+            this.category = category;
+            this.genre = genre;
+            this.recommendations = recommendations;
+            
+            // Header, recommendations and related row share the height as the layout plan says
+            VBox headerSection = createFixedGenreHeader(category, genre);
+            titleLabel = (Label) headerSection.getChildren().get(0);
+
+            VBox recommendationsSection = createFixedRecommendationsSection(recommendations, layoutPlan.genreCards);
+            grid = (RecommendationGrid) recommendationsSection.getChildren().get(0);
 
-        Task<Void> loadingTask = new Task<Void>() {
+            relatedRow = createRelatedSection();
+            nodes.addAll(Arrays.asList(headerSection, recommendationsSection, relatedRow));
+        }
+        
+        void relayout(LayoutPlan plan) {
+            relayoutGridPage(nodes, plan, plan.genreCards);
+            layoutBucket = layoutBucket();
+        }
+        
+        void bind(String category, String genre, List<Recommendation> recommendations) {
+            this.category = category;
+            this.genre = genre;
+            this.recommendations = recommendations;
+            titleLabel.setText(genreTitle(category, genre));
+            grid.setItems(recommendations);
+        }
+    }
+    
+    // Decodes the first items of a catalog list up front (off the FX thread); the rest are
+    // still decoded as the grid scrolls to them
+    private static List<Recommendation> preloaded(List<Recommendation> recommendations, int count) {
+        Recommendation[] decoded = new Recommendation[Math.min(count, recommendations.size())];
+        for (int i = 0; i < decoded.length; i++) {
+            decoded[i] = recommendations.get(i);
+        }
+        return new AbstractList<Recommendation>() {
             @Override
-            protected Void call() throws Exception {
-                Thread.sleep(1000);
-                return null;
+            public Recommendation get(int index) {
+                return index >= 0 && index < decoded.length ? decoded[index] : recommendations.get(index);
+            }
+            
+            @Override
+            public int size() {
+                return recommendations.size();
             }
         };
+    }
 
-        loadingTask.setOnSucceeded(e -> {
-            Platform.runLater(() -> {
-                contentArea.getChildren().clear();
-                currentView = "Genre";
-
-                // Calculate available height for content
-                double availableHeight = contentArea.getPrefHeight();
-
-                // Enhanced header - takes 15% of available height (reduced from 20%)
-                VBox headerSection = createFixedGenreHeader(category, genre, availableHeight * 0.15);
-                contentArea.getChildren().add(headerSection);
-
-                // Enhanced recommendations - takes 85% of available height (increased from 80%)
-                VBox recommendationsSection = createFixedRecommendationsSection(category, genre, availableHeight * 0.85);
-                contentArea.getChildren().add(recommendationsSection);
-            });
-        });
-
-        new Thread(loadingTask).start();
+    private String genreTitle(String category, String genre) {
+        return getEmojiForCategory(category) + " " + genre + " " + category;
     }
 
-    private VBox createFixedGenreHeader(String category, String genre, double maxHeight) {
+    private VBox createFixedGenreHeader(String category, String genre) {
         VBox header = new VBox();
-        header.setMaxHeight(maxHeight);
-        header.setPrefHeight(maxHeight);
         header.setAlignment(Pos.TOP_LEFT);
 
-        // Responsive spacing and padding based on allocated height
-        double padding = Math.max(8, maxHeight * 0.1);
-        double spacing = Math.max(6, maxHeight * 0.15);
-
-        header.setPadding(new Insets(padding, 0, padding, 0));
-        header.setSpacing(spacing);
-
-        // Enhanced title with responsive font
-        String emoji = getEmojiForCategory(category);
-        Label titleLabel = new Label(emoji + " " + genre + " " + category);
-        double titleSize = Math.max(14, maxHeight * 0.28);
-        titleLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, titleSize));
+        // Enhanced title; fonts and spacing follow the layout plan
+        Label titleLabel = new Label(genreTitle(category, genre));
         titleLabel.setTextFill(TEXT_COLOR);
 
         // Add glow effect
@@ -1738,228 +3010,750 @@ public class SmartLifeRecommenderFX extends Application {
         titleGlow.setLevel(0.4);
         titleLabel.setEffect(titleGlow);
 
-        // Enhanced subtitle with responsive font
+        // Enhanced subtitle
         Label subtitleLabel = new Label("🎯 Click on any recommendation to explore more");
-        double subtitleSize = Math.max(7, maxHeight * 0.1);
-        subtitleLabel.setFont(Font.font("Segoe UI", FontWeight.NORMAL, subtitleSize));
         subtitleLabel.setTextFill(Color.rgb(190, 190, 190));
 
         header.getChildren().addAll(titleLabel, subtitleLabel);
+        applyHeaderLayout(header, layoutPlan);
         return header;
     }
-
-    private VBox createFixedRecommendationsSection(String category, String genre, double maxHeight) {
-    VBox section = new VBox();
-    section.setAlignment(Pos.CENTER);
-    section.setMaxHeight(maxHeight);
-    section.setPrefHeight(maxHeight);
-
-    // Responsive spacing
-    double spacing = Math.max(10, maxHeight * 0.03);
-    section.setSpacing(spacing);
-
-    // Enhanced recommendations grid with OPTIMAL CARD SIZING
-    GridPane recommendationsGrid = new GridPane();
-    recommendationsGrid.setAlignment(Pos.CENTER);
-
-    // Calculate how many recommendations we have
-    Map<String, List<Recommendation>> categoryData = data.get(category);
-    int totalRecommendations = 0;
-    if (categoryData != null && categoryData.containsKey(genre)) {
-        totalRecommendations = categoryData.get(genre).size();
+    
+    // Header of a grid page: the title line, then subtitle lines
+    private static void applyHeaderLayout(VBox header, LayoutPlan plan) {
+        header.setMaxHeight(plan.headerHeight);
+        header.setPrefHeight(plan.headerHeight);
+        header.setPadding(new Insets(plan.headerPadding, 0, plan.headerPadding, 0));
+        header.setSpacing(plan.headerSpacing);
+        List<Node> lines = header.getChildren();
+        ((Label) lines.get(0)).setFont(Font.font("Segoe UI", FontWeight.BOLD, plan.headerTitleFont));
+        for (int i = 1; i < lines.size(); i++) {
+            ((Label) lines.get(i)).setFont(Font.font("Segoe UI", FontWeight.NORMAL, plan.headerSubtitleFont));
+        }
+    }
+    
+    // Grid pages are header, recommendations section and (genre page only) related row;
+    // a new plan is pushed to those nodes without rebuilding them
+    private void relayoutGridPage(List<Node> nodes, LayoutPlan plan, CardMetrics cards) {
+        applyHeaderLayout((VBox) nodes.get(0), plan);
+        VBox section = (VBox) nodes.get(1);
+        applySectionLayout(section, cards);
+        ((RecommendationGrid) section.getChildren().get(0)).setMetrics(cards);
+        if (nodes.size() > 2) {
+            applyRelatedLayout((VBox) nodes.get(2), plan);
+        }
     }
 
-    // OPTIMAL LAYOUT: 4 columns, 2 rows for 8 recommendations
-    int columns = 4;
-    int rows = 2; // Fixed to 2 rows for better card size
+    private VBox createFixedRecommendationsSection(List<Recommendation> recommendations, CardMetrics cards) {
+        VBox section = new VBox();
+        section.setAlignment(Pos.CENTER);
+        applySectionLayout(section, cards);
+        
+        // OPTIMAL LAYOUT: 4 columns, 2 rows on screen; bigger genres scroll through recycled cards
+        section.getChildren().add(new RecommendationGrid(recommendations, cards));
+        return section;
+    }
     
-    // Calculate available space for cards
-    double availableWidth = primaryStage.getWidth() - (sidebarVisible ? 310 : 60); // Account for sidebar and padding
-    double availableHeight = maxHeight - spacing * 3; // Account for section spacing
+    private static void applySectionLayout(VBox section, CardMetrics cards) {
+        section.setMaxHeight(cards.sectionHeight);
+        section.setPrefHeight(cards.sectionHeight);
+        section.setSpacing(cards.sectionSpacing);
+    }
     
-    // Calculate BIGGER card dimensions that still fit on screen
-    double cardWidth = Math.max(200, (availableWidth - (columns - 1) * 20) / columns); // Increased minimum
+    // After a short hover, decodes the first items of the genre (or of every genre in
+    // the category when genre is null) at prefetch priority. Leaving the card cancels
+    // whatever has not started; clicking it hands the work over to the next page.
+    private void installHoverPrefetch(Node card, String category, String genre, int itemsPerGenre) {
+        List<ImageLoader.Request> requests = new ArrayList<>();
+        PauseTransition dwell = new PauseTransition(Duration.millis(HOVER_PREFETCH_DELAY_MS));
+        dwell.setOnFinished(e -> {
+            Catalog snapshot = catalog;
+            CardMetrics cards = layoutPlan.genreCards;
+            Collection<String> genres = genre != null ? Collections.singletonList(genre) : snapshot.genres(category);
+            for (String g : genres) {
+                // Reading the items also warms the catalog pages behind them
+                List<Recommendation> recommendations = snapshot.recommendations(category, g);
+                for (int i = 0; i < Math.min(itemsPerGenre, recommendations.size()); i++) {
+                    requests.add(imageLoader.load(recommendations.get(i).imagePath, cards.imageWidth, cards.imageHeight,
+                        ImageLoader.PREFETCH, image -> { }));
+                }
+            }
+        });
+        
+        card.addEventHandler(MouseEvent.MOUSE_ENTERED, e -> dwell.playFromStart());
+        card.addEventHandler(MouseEvent.MOUSE_EXITED, e -> {
+            dwell.stop();
+            for (ImageLoader.Request request : requests) {
+                request.cancel();
+            }
+            requests.clear();
+        });
+        card.addEventHandler(MouseEvent.MOUSE_CLICKED, e -> {
+            dwell.stop();
+            requests.clear();
+        });
+    }
     
-    // Calculate card height for 2 rows with good spacing
-    double totalVerticalGap = (rows - 1) * 20; // Gap between rows
-    double cardHeight = Math.max(240, (availableHeight - totalVerticalGap) / rows); // Increased minimum
+    // Poster paths of the first page of every genre in the category; safe to call off the FX thread
+    private static List<String> firstPageImagePaths(Catalog snapshot, String category) {
+        List<String> imagePaths = new ArrayList<>();
+        for (String genre : snapshot.genres(category)) {
+            List<Recommendation> recommendations = snapshot.recommendations(category, genre);
+            for (int i = 0; i < Math.min(SEARCH_RESULT_LIMIT, recommendations.size()); i++) {
+                imagePaths.add(recommendations.get(i).imagePath);
+            }
+        }
+        return imagePaths;
+    }
     
-    // Ensure cards don't get too big on large screens
-    cardWidth = Math.min(cardWidth, 280);
-    cardHeight = Math.min(cardHeight, 320);
-
-    // Set responsive gaps
-    double gap = 20; // Fixed gap for consistent spacing
-    recommendationsGrid.setHgap(gap);
-    recommendationsGrid.setVgap(gap);
-
-    // Add cards to grid
-    if (categoryData != null && categoryData.containsKey(genre)) {
-        List<Recommendation> recommendations = categoryData.get(genre);
-
-        for (int i = 0; i < recommendations.size(); i++) {
-            VBox card = createFixedRecommendationCard(recommendations.get(i), cardWidth, cardHeight);
-            int col = i % columns;
-            int row = i / columns;
-            recommendationsGrid.add(card, col, row);
+    // Queues posters behind whatever is on screen
+    private void prefetchGenreImages(List<String> imagePaths) {
+        imageLoader.cancelPrefetches();
+        CardMetrics cards = layoutPlan.genreCards;
+        for (String imagePath : imagePaths) {
+            imageLoader.prefetch(imagePath, cards.imageWidth, cards.imageHeight);
         }
     }
 
-    section.getChildren().add(recommendationsGrid);
-    return section;
-}
-
-private VBox createFixedRecommendationCard(Recommendation rec, double cardWidth, double cardHeight) {
-    VBox card = new VBox();
-    card.setAlignment(Pos.TOP_CENTER);
-    card.setCursor(Cursor.HAND);
-    card.setPrefSize(cardWidth, cardHeight);
-    card.setMaxSize(cardWidth, cardHeight);
-    card.setMinSize(cardWidth, cardHeight);
-
-    // Enhanced gradient background with red theme
-    LinearGradient cardGradient = new LinearGradient(
-        0, 0, 1, 1, true, CycleMethod.NO_CYCLE,
-        new Stop(0, Color.rgb(40, 40, 50)),
-        new Stop(0.5, Color.rgb(30, 30, 40)),
-        new Stop(1, Color.rgb(20, 20, 30))
-    );
-    BackgroundFill cardFill = new BackgroundFill(cardGradient, new CornerRadii(15), null);
-    card.setBackground(new Background(cardFill));
-
-    // Enhanced shadow
-    DropShadow cardShadow = new DropShadow();
-    cardShadow.setColor(Color.rgb(0, 0, 0, 0.6));
-    cardShadow.setRadius(15);
-    cardShadow.setOffsetY(8);
-    card.setEffect(cardShadow);
-
-    // BIGGER image sizing for better visibility
-    ImageView imageView = new ImageView();
-    double imageHeight = cardHeight * 0.72; // Increased image portion
+    // Recommendation card that can be rebound to another item, so a scrolling grid reuses
+    // its nodes instead of building a new card for every row that comes into view
+    private final class RecommendationCard extends VBox {
+        private double imageWidth;
+        private double imageHeight;
+        private final ImageView imageView = new ImageView();
+        private final Rectangle imageClip = new Rectangle();
+        private final Label placeholder = new Label();
+        private final StackPane imageContainer;
+        private final VBox textPanel = new VBox();
+        private final Label titleLabel = new Label();
+        private final Label hintLabel = new Label();
+        private final Label favouriteToggle = new Label();
+        private final Label similarLabel = new Label("≈ More like this");
+        private Recommendation rec;
+        private int index = -1;
+        // Bumped on every bind so callbacks for the previous item are ignored
+        private int generation;
+        private ImageLoader.Request imageRequest;
+        private FadeTransition fadeIn;
+
+        RecommendationCard(CardMetrics metrics) {
+            setAlignment(Pos.TOP_CENTER);
+            setCursor(Cursor.HAND);
+
+            // Gradient background with red hover theme (see .recommendation-card) and shared shadow
+            getStyleClass().add("recommendation-card");
+            setEffect(RECOMMENDATION_CARD_SHADOW);
+
+            imageView.setPreserveRatio(true);
+            imageView.setSmooth(true);
+
+            // Add rounded corners to image
+            imageClip.setArcWidth(15);
+            imageClip.setArcHeight(15);
+            imageView.setClip(imageClip);
+
+            // Placeholder shown until the image is decoded; it becomes the fallback if there is none
+            placeholder.setTextFill(Color.rgb(150, 150, 150));
+            placeholder.setAlignment(Pos.CENTER);
+            placeholder.getStyleClass().add("card-placeholder");
+
+            // Center the image in the card
+            imageContainer = new StackPane(placeholder, imageView);
+            imageContainer.setAlignment(Pos.CENTER);
+            imageContainer.setPadding(new Insets(6));
+            getChildren().add(imageContainer);
+
+            // BIGGER text content with proper proportions
+            textPanel.setAlignment(Pos.CENTER);
+
+            // BIGGER and MORE VISIBLE title
+            titleLabel.setTextFill(TEXT_COLOR);
+            titleLabel.setWrapText(true);
+            titleLabel.setAlignment(Pos.CENTER);
+
+            // BIGGER hint label
+            hintLabel.getStyleClass().add("card-hint");
+            hintLabel.setAlignment(Pos.CENTER);
+
+            // Heart toggle stored in the profile; consumes the click so the URL is not opened
+            favouriteToggle.setCursor(Cursor.HAND);
+            favouriteToggle.setOnMouseClicked(e -> {
+                e.consume();
+                if (rec != null) {
+                    setFavourite(rec, !isFavourite(rec));
+                    refreshFavourite();
+                }
+            });
 
-    imageView.setFitWidth(cardWidth - 12); // Proper padding from card edges
-    imageView.setFitHeight(imageHeight);
-    imageView.setPreserveRatio(true);
-    imageView.setSmooth(true);
+            // "More like this" link for catalog items; consumes the click so the URL is not opened
+            similarLabel.setTextFill(RED_LIGHT);
+            similarLabel.setOnMouseClicked(e -> {
+                e.consume();
+                if (rec != null) {
+                    loadSimilarRecommendations(rec);
+                }
+            });
+            
+            HBox hintRow = new HBox(favouriteToggle, hintLabel, similarLabel);
+            hintRow.setAlignment(Pos.CENTER);
+            hintRow.setSpacing(10);
 
-    Image image = loadLocalImage(rec.imagePath, cardWidth - 12, imageHeight);
+            textPanel.getChildren().addAll(titleLabel, hintRow);
+            getChildren().add(textPanel);
 
-    if (image != null) {
-        imageView.setImage(image);
+            // Enhanced hover effects - background and hint colour follow :hover in the stylesheet
+            setOnMouseEntered(e -> {
+                playHoverScale(this, 1.04); // Good hover scale
+                setEffect(CARD_HOVER_GLOW);
+            });
+            
+            setOnMouseExited(e -> {
+                playHoverScale(this, 1.0);
+                setEffect(RECOMMENDATION_CARD_SHADOW);
+            });
 
-        // Add rounded corners to image
-        Rectangle clip = new Rectangle(cardWidth - 12, imageHeight);
-        clip.setArcWidth(15);
-        clip.setArcHeight(15);
-        imageView.setClip(clip);
-
-        // Center the image in the card
-        VBox imageContainer = new VBox();
-        imageContainer.setAlignment(Pos.CENTER);
-        imageContainer.setPadding(new Insets(6));
-        imageContainer.getChildren().add(imageView);
-        card.getChildren().add(imageContainer);
-    } else {
-        // Enhanced fallback with bigger sizing
-        Label errorLabel = new Label("🖼️\nImage not available");
-        errorLabel.setTextFill(Color.rgb(150, 150, 150));
-        errorLabel.setPrefSize(cardWidth - 12, imageHeight);
-        errorLabel.setMaxSize(cardWidth - 12, imageHeight);
-        errorLabel.setMinSize(cardWidth - 12, imageHeight);
-        errorLabel.setAlignment(Pos.CENTER);
-        double errorFontSize = Math.max(14, cardHeight * 0.06); // Bigger error font
-        errorLabel.setFont(Font.font("Segoe UI", FontWeight.NORMAL, errorFontSize));
-        errorLabel.setStyle("-fx-background-color: rgb(50, 50, 60); -fx-border-color: rgb(80, 80, 90); -fx-border-width: 1; -fx-border-radius: 10; -fx-background-radius: 10;");
-        
-        VBox errorContainer = new VBox();
-        errorContainer.setAlignment(Pos.CENTER);
-        errorContainer.setPadding(new Insets(6));
-        errorContainer.getChildren().add(errorLabel);
-        card.getChildren().add(errorContainer);
-    }
-
-    // BIGGER text content with proper proportions
-    VBox textPanel = new VBox();
-    textPanel.setAlignment(Pos.CENTER);
-    double textHeight = cardHeight * 0.28; // Proper text space
-    textPanel.setPrefHeight(textHeight);
-    textPanel.setMaxHeight(textHeight);
-    textPanel.setMinSize(cardWidth, textHeight);
-
-    double textPadding = Math.max(10, cardWidth * 0.05); // Good padding
-    double textSpacing = Math.max(5, textHeight * 0.12); // Good spacing
-    textPanel.setPadding(new Insets(textPadding));
-    textPanel.setSpacing(textSpacing);
-
-    // BIGGER and MORE VISIBLE title
-    Label titleLabel = new Label(rec.title);
-    double titleSize = Math.max(14, cardHeight * 0.06); // Much bigger font
-    titleLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, titleSize));
-    titleLabel.setTextFill(TEXT_COLOR);
-    titleLabel.setWrapText(true);
-    titleLabel.setMaxWidth(cardWidth - textPadding * 2);
-    titleLabel.setMaxHeight(textHeight * 0.65); // Adequate space for title
-    titleLabel.setAlignment(Pos.CENTER);
-
-    // BIGGER hint label
-    Label hintLabel = new Label("🔥 Click to explore →");
-    double hintSize = Math.max(11, cardHeight * 0.04); // Bigger hint font
-    hintLabel.setFont(Font.font("Segoe UI", FontWeight.NORMAL, hintSize));
-    hintLabel.setTextFill(Color.rgb(180, 180, 180));
-    hintLabel.setAlignment(Pos.CENTER);
-
-    textPanel.getChildren().addAll(titleLabel, hintLabel);
-    card.getChildren().add(textPanel);
-
-    // Enhanced hover effects with red theme
-    card.setOnMouseEntered(e -> {
-        LinearGradient hoverGradient = new LinearGradient(
-            0, 0, 1, 1, true, CycleMethod.NO_CYCLE,
-            new Stop(0, Color.rgb(229, 9, 20, 0.8)),
-            new Stop(0.5, Color.rgb(180, 0, 0, 0.6)),
-            new Stop(1, Color.rgb(229, 9, 20, 0.8))
-        );
-        BackgroundFill hoverFill = new BackgroundFill(hoverGradient, new CornerRadii(15), null);
-        card.setBackground(new Background(hoverFill));
-        
-        // Scale animation
-        ScaleTransition scaleUp = new ScaleTransition(Duration.millis(200), card);
-        scaleUp.setToX(1.04); // Good hover scale
-        scaleUp.setToY(1.04);
-        scaleUp.play();
+            // Click handler
+            setOnMouseClicked(e -> {
+                if (rec == null) {
+                    return;
+                }
+                if (rec.redirectUrl != null && !rec.redirectUrl.isEmpty()) {
+                    recordOpen(rec);
+                    openURL(rec.redirectUrl);
+                } else {
+                    System.out.println("No URL available for " + rec.title);
+                }
+            });
+            applyMetrics(metrics);
+        }
         
-        // Enhanced glow
-        Glow hoverGlow = new Glow();
-        hoverGlow.setLevel(0.6);
-        card.setEffect(hoverGlow);
+        // Sizes and fonts from the layout plan. A new image size drops the bound item, so the
+        // grid binds it again on its next layout and the poster is decoded at the new size.
+        void applyMetrics(CardMetrics m) {
+            setPrefSize(m.width, m.height);
+            setMaxSize(m.width, m.height);
+            setMinSize(m.width, m.height);
+            
+            boolean imageResized = m.imageWidth != imageWidth || m.imageHeight != imageHeight;
+            imageWidth = m.imageWidth;
+            imageHeight = m.imageHeight;
+            imageView.setFitWidth(imageWidth);
+            imageView.setFitHeight(imageHeight);
+            imageClip.setWidth(imageWidth);
+            imageClip.setHeight(imageHeight);
+            placeholder.setPrefSize(imageWidth, imageHeight);
+            placeholder.setMaxSize(imageWidth, imageHeight);
+            placeholder.setMinSize(imageWidth, imageHeight);
+            placeholder.setFont(Font.font("Segoe UI", FontWeight.NORMAL, m.placeholderFont));
+            
+            textPanel.setPrefHeight(m.textHeight);
+            textPanel.setMaxHeight(m.textHeight);
+            textPanel.setMinSize(m.width, m.textHeight);
+            textPanel.setPadding(new Insets(m.textPadding));
+            textPanel.setSpacing(m.textSpacing);
+            titleLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, m.titleFont));
+            titleLabel.setMaxWidth(m.width - m.textPadding * 2);
+            titleLabel.setMaxHeight(m.textHeight * 0.65); // Adequate space for title
+            hintLabel.setFont(Font.font("Segoe UI", FontWeight.NORMAL, m.hintFont));
+            favouriteToggle.setFont(Font.font("Segoe UI", FontWeight.BOLD, m.hintFont * 1.2));
+            similarLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, m.hintFont));
+            
+            if (imageResized && rec != null) {
+                unbind();
+            }
+        }
         
-        hintLabel.setTextFill(RED_LIGHT);
-    });
-    
-    card.setOnMouseExited(e -> {
-        card.setBackground(new Background(cardFill));
+        // Shows another item in this card; its image is requested at visible priority
+        void bind(Recommendation rec, int index) {
+            unbind();
+            this.rec = rec;
+            this.index = index;
+            int bound = ++generation;
+            
+            titleLabel.setText(rec.title);
+            hintLabel.setText(isSeen(rec) ? "✓ Opened before" : "🔥 Click to explore →");
+            refreshFavourite();
+            similarLabel.setVisible(rec.id >= 0);
+            similarLabel.setManaged(rec.id >= 0);
+            
+            imageView.setImage(null);
+            imageView.setOpacity(1);
+            placeholder.setText("");
+            imageContainer.getChildren().setAll(placeholder, imageView);
+            
+            boolean[] decoding = new boolean[1];
+            ImageView[] preview = new ImageView[1];
+            imageRequest = imageLoader.load(rec.imagePath, imageWidth, imageHeight, ImageLoader.VISIBLE, image -> {
+                if (bound != generation) {
+                    return;
+                }
+                if (image == null) {
+                    // Enhanced fallback with bigger sizing
+                    imageContainer.getChildren().remove(preview[0]);
+                    placeholder.setText("🖼️\nImage not available");
+                    return;
+                }
+                imageView.setImage(image);
+                if (!decoding[0]) {
+                    // Already cached - no placeholder was ever visible
+                    imageContainer.getChildren().remove(placeholder);
+                    return;
+                }
+                // Cross-fade from the blurred preview to the decoded image
+                imageView.setOpacity(0);
+                fadeIn = new FadeTransition(Duration.millis(250), imageView);
+                fadeIn.setToValue(1);
+                fadeIn.setOnFinished(e -> imageContainer.getChildren().removeAll(placeholder, preview[0]));
+                fadeIn.play();
+            });
+            decoding[0] = imageView.getImage() == null;
+            if (decoding[0]) {
+                preview[0] = createPreviewView(rec.imagePath, imageWidth, imageHeight);
+                if (preview[0] != null) {
+                    imageContainer.getChildren().add(1, preview[0]);
+                }
+            }
+        }
         
-        ScaleTransition scaleDown = new ScaleTransition(Duration.millis(200), card);
-        scaleDown.setToX(1.0);
-        scaleDown.setToY(1.0);
-        scaleDown.play();
+        // Drops the current item; an image that has not been decoded yet leaves the queue
+        void unbind() {
+            generation++;
+            if (imageRequest != null) {
+                imageRequest.cancel();
+                imageRequest = null;
+            }
+            if (fadeIn != null) {
+                fadeIn.stop();
+                fadeIn = null;
+            }
+            rec = null;
+            index = -1;
+        }
         
-        card.setEffect(cardShadow);
-        hintLabel.setTextFill(Color.rgb(180, 180, 180));
-    });
-
-    // Click handler
-    card.setOnMouseClicked(e -> {
-        if (rec.redirectUrl != null && !rec.redirectUrl.isEmpty()) {
-            openURL(rec.redirectUrl);
-        } else {
-            System.out.println("No URL available for " + rec.title);
+        private void refreshFavourite() {
+            boolean favourite = isFavourite(rec);
+            favouriteToggle.setText(favourite ? "♥" : "♡");
+            favouriteToggle.setTextFill(favourite ? RED_ACCENT : Color.rgb(180, 180, 180));
         }
-    });
-
-    return card;
-}
+    }
+    
+    // Scrolling recommendation grid that only has cards for the rows in view plus an overscan
+    // row, rebinding them as the grid scrolls. Item i is always shown by cards[i % cards.length],
+    // so scrolling by one row rebinds one row of cards and the rest keep their images.
+    private final class RecommendationGrid extends Region {
+        private CardMetrics metrics;
+        private double cardWidth;
+        private double cardHeight;
+        private final double gap = CardMetrics.GAP;
+        private double rowHeight;
+        // Room around the cards for the hover scale and drop shadow
+        private final double inset;
+        private final ScrollBar scrollBar = new ScrollBar();
+        private List<Recommendation> items = Collections.emptyList();
+        private int rows;
+        private RecommendationCard[] cards = new RecommendationCard[0];
+
+        RecommendationGrid(List<Recommendation> items, CardMetrics metrics) {
+            this.inset = gap / 2;
+            
+            scrollBar.setOrientation(Orientation.VERTICAL);
+            scrollBar.setMin(0);
+            applyMetrics(metrics);
+            scrollBar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                markOperation("grid scroll");
+                requestLayout();
+            });
+            getChildren().add(scrollBar);
+            setItems(items);
+            setOnScroll(e -> {
+                if (scrollBar.isVisible()) {
+                    scrollBar.setValue(Math.max(0, Math.min(scrollBar.getMax(), scrollBar.getValue() - e.getDeltaY())));
+                    e.consume();
+                }
+            });
+            
+            Rectangle clip = new Rectangle();
+            clip.widthProperty().bind(widthProperty());
+            clip.heightProperty().bind(heightProperty());
+            setClip(clip);
+            
+            // Leaving the screen cancels pending images; coming back rebinds on the next layout
+            ViewLifecycle.onAttach(this, this::requestLayout, () -> {
+                for (RecommendationCard card : cards) {
+                    card.unbind();
+                }
+            });
+        }
+        
+        private void applyMetrics(CardMetrics m) {
+            metrics = m;
+            cardWidth = m.width;
+            cardHeight = m.height;
+            rowHeight = cardHeight + gap;
+            scrollBar.setVisibleAmount(GRID_VISIBLE_ROWS * rowHeight);
+            scrollBar.setUnitIncrement(rowHeight / 4);
+            scrollBar.setBlockIncrement(rowHeight);
+        }
+        
+        // Resizes the grid and its cards for a new window size, keeping the same top row in view
+        void setMetrics(CardMetrics m) {
+            double topRow = scrollBar.getValue() / rowHeight;
+            applyMetrics(m);
+            for (RecommendationCard card : cards) {
+                card.applyMetrics(m);
+            }
+            double scrollRange = rows * rowHeight - GRID_VISIBLE_ROWS * rowHeight;
+            scrollBar.setMax(Math.max(0, scrollRange));
+            scrollBar.setValue(Math.max(0, Math.min(scrollBar.getMax(), topRow * rowHeight)));
+            requestLayout();
+        }
+        
+        // Shows another list in the same nodes: the cards are rebound on the next layout and
+        // the pool only grows when the new list needs more cards than any list before it
+        void setItems(List<Recommendation> items) {
+            for (RecommendationCard card : cards) {
+                card.unbind();
+            }
+            this.items = items;
+            rows = (items.size() + GRID_COLUMNS - 1) / GRID_COLUMNS;
+            
+            int poolSize = Math.min(items.size(), (GRID_VISIBLE_ROWS + 2 * GRID_OVERSCAN_ROWS) * GRID_COLUMNS);
+            if (poolSize > cards.length) {
+                RecommendationCard[] grown = Arrays.copyOf(cards, poolSize);
+                for (int i = cards.length; i < poolSize; i++) {
+                    grown[i] = new RecommendationCard(metrics);
+                    // Cards go under the scroll bar
+                    getChildren().add(i, grown[i]);
+                }
+                cards = grown;
+            }
+            
+            // Scroll bar only for genres with more rows than fit on screen
+            double scrollRange = rows * rowHeight - GRID_VISIBLE_ROWS * rowHeight;
+            scrollBar.setMax(Math.max(0, scrollRange));
+            scrollBar.setValue(0);
+            scrollBar.setVisible(scrollRange > 0);
+            requestLayout();
+        }
+        
+        private double scrollBarWidth() {
+            return scrollBar.isVisible() ? scrollBar.prefWidth(-1) : 0;
+        }
+        
+        @Override
+        protected double computePrefWidth(double height) {
+            return GRID_COLUMNS * (cardWidth + gap) - gap + 2 * inset + scrollBarWidth();
+        }
+        
+        @Override
+        protected double computePrefHeight(double width) {
+            return Math.min(GRID_VISIBLE_ROWS, Math.max(1, rows)) * rowHeight - gap + 2 * inset;
+        }
+        
+        @Override
+        protected double computeMinWidth(double height) {
+            return computePrefWidth(height);
+        }
+        
+        @Override
+        protected double computeMinHeight(double width) {
+            return computePrefHeight(width);
+        }
+        
+        @Override
+        protected void layoutChildren() {
+            double barWidth = scrollBarWidth();
+            scrollBar.resizeRelocate(getWidth() - barWidth, 0, barWidth, getHeight());
+            if (cards.length == 0) {
+                return;
+            }
+            
+            double offset = scrollBar.getValue();
+            int poolRows = (cards.length + GRID_COLUMNS - 1) / GRID_COLUMNS;
+            int firstRow = Math.max(0, Math.min((int) (offset / rowHeight) - GRID_OVERSCAN_ROWS, rows - poolRows));
+            int first = firstRow * GRID_COLUMNS;
+            int last = Math.min(items.size(), first + cards.length);
+            double left = Math.max(inset, (getWidth() - barWidth - (GRID_COLUMNS * (cardWidth + gap) - gap)) / 2);
+            for (int i = first; i < last; i++) {
+                RecommendationCard card = cards[i % cards.length];
+                if (card.index != i) {
+                    card.bind(items.get(i), i);
+                }
+                card.resizeRelocate(left + (i % GRID_COLUMNS) * (cardWidth + gap),
+                    inset + (i / GRID_COLUMNS) * rowHeight - offset, cardWidth, cardHeight);
+                card.setVisible(true);
+            }
+            // Cards with no item in range (a partial last row, or a shorter list) still hold
+            // their old item and position, so they are dropped and hidden
+            for (int c = last - first; c < cards.length; c++) {
+                RecommendationCard card = cards[(first + c) % cards.length];
+                if (card.index >= 0) {
+                    card.unbind();
+                }
+                card.setVisible(false);
+            }
+        }
+    }
+    
+    // Blurred, scaled-up preview from the asset pack, shown while the poster decodes
+    private ImageView createPreviewView(String imagePath, double width, double height) {
+        AssetPack pack = assetPack;
+        byte[] preview = pack == null ? null : pack.preview(imagePath);
+        if (preview == null) {
+            return null;
+        }
+        int previewWidth = preview[0] & 0xFF;
+        int previewHeight = preview[1] & 0xFF;
+        WritableImage image = new WritableImage(previewWidth, previewHeight);
+        image.getPixelWriter().setPixels(0, 0, previewWidth, previewHeight, PixelFormat.getByteRgbInstance(), preview, 2, previewWidth * 3);
+        
+        ImageView view = new ImageView(image);
+        view.setFitWidth(width);
+        view.setFitHeight(height);
+        view.setPreserveRatio(true);
+        view.setSmooth(true);
+        view.setEffect(new GaussianBlur(Math.max(8, width / 16)));
+        
+        Rectangle clip = new Rectangle(width, height);
+        clip.setArcWidth(15);
+        clip.setArcHeight(15);
+        view.setClip(clip);
+        return view;
+    }
+    
+    // RELATED ROW - "People who opened this also opened"
+    private VBox createRelatedSection() {
+        VBox section = new VBox();
+        section.setAlignment(Pos.TOP_LEFT);
+        applyRelatedLayout(section, layoutPlan);
+        return section;
+    }
+    
+    // Sizes the row and whatever it shows (title line and chips) in place
+    private static void applyRelatedLayout(VBox section, LayoutPlan plan) {
+        double height = plan.relatedHeight;
+        section.setMaxHeight(height);
+        section.setPrefHeight(height);
+        section.setSpacing(Math.max(4, height * 0.08));
+        section.setPadding(new Insets(Math.max(6, height * 0.08), 0, 0, 0));
+        if (section.getChildren().size() == 2) {
+            ((Label) section.getChildren().get(0)).setFont(Font.font("Segoe UI", FontWeight.BOLD, plan.relatedTitleFont));
+            for (Node chip : ((HBox) section.getChildren().get(1)).getChildren()) {
+                ((Button) chip).setPrefHeight(plan.relatedChipHeight);
+                ((Button) chip).setFont(Font.font("Segoe UI", FontWeight.NORMAL, plan.relatedChipFont));
+            }
+        }
+    }
+    
+    // Shows neighbours of the item just opened, or of everything on the page
+    private void fillRelatedRow(Recommendation opened, List<Recommendation> onPage) {
+        if (relatedRow == null) {
+            return;
+        }
+        relatedRow.getChildren().clear();
+        
+        List<Recommendation> related = opened != null
+            ? coOpenModel.related(opened, RELATED_LIMIT, onPage)
+            : coOpenModel.related(onPage, RELATED_LIMIT);
+        if (related.isEmpty()) {
+            return;
+        }
+        
+        Label titleLabel = new Label("👥 People who opened " + (opened != null ? "\"" + opened.title + "\"" : "these") + " also opened");
+        titleLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, layoutPlan.relatedTitleFont));
+        titleLabel.setTextFill(TEXT_COLOR);
+        
+        HBox items = new HBox();
+        items.setAlignment(Pos.CENTER_LEFT);
+        items.setSpacing(12);
+        for (Recommendation rec : related) {
+            items.getChildren().add(createRelatedChip(rec, onPage));
+        }
+        
+        relatedRow.getChildren().addAll(titleLabel, items);
+    }
+    
+    private Button createRelatedChip(Recommendation rec, List<Recommendation> onPage) {
+        Button chip = new Button(rec.title);
+        chip.setPrefHeight(layoutPlan.relatedChipHeight);
+        chip.setMaxWidth(220);
+        chip.setCursor(Cursor.HAND);
+        chip.setFont(Font.font("Segoe UI", FontWeight.NORMAL, layoutPlan.relatedChipFont));
+        
+        chip.getStyleClass().add("related-chip");
+        
+        chip.setOnAction(e -> {
+            if (rec.redirectUrl != null && !rec.redirectUrl.isEmpty()) {
+                recordOpen(rec);
+                openURL(rec.redirectUrl);
+            }
+        });
+        return chip;
+    }
+    
+    // Feeds a click into the co-open model and refreshes the related row in place
+    private void recordOpen(Recommendation rec) {
+        logEvent(EventLog.ITEM_OPEN, rec.title, rec.imagePath, rec.redirectUrl);
+        seenItems.add(rec.itemKey());
+        profilePut(profileKey(PROFILE_SEEN, rec.itemKey()), longBytes(System.currentTimeMillis()));
+        if (pendingOpens != null) {
+            pendingOpens.add(rec);
+        }
+        coOpenModel.recordOpen(rec);
+        if (currentView.equals("Genre")) {
+            fillRelatedRow(rec, catalog.recommendations(currentCategory, currentGenre));
+        }
+    }
+    
+    // SIMILAR PAGE - nearest neighbours of one item (NO SCROLL)
+    private void loadSimilarRecommendations(Recommendation rec) {
+        cancelPageLoad();
+        markOperation("build Similar page");
+        contentArea.getChildren().clear();
+        currentView = "Similar";
+        
+        // The card may still show an item of a catalog that has since been reloaded, so its
+        // id is looked up again in the index's own snapshot and results are read from there
+        SimilarityIndex index = similarityIndex;
+        List<Recommendation> results = new ArrayList<>();
+        int id = index != null ? index.idOf(rec) : -1;
+        if (id >= 0) {
+            for (int neighbour : index.nearest(id, SEARCH_RESULT_LIMIT)) {
+                results.add(index.catalog().get(neighbour));
+            }
+        }
+        
+        contentArea.getChildren().add(createSimilarHeader(rec, index != null));
+        contentArea.getChildren().add(createFixedRecommendationsSection(results, layoutPlan.resultCards));
+        showResultsPage();
+    }
+    
+    private VBox createSimilarHeader(Recommendation rec, boolean indexReady) {
+        VBox header = new VBox();
+        header.setAlignment(Pos.TOP_LEFT);
+        
+        Label titleLabel = new Label("≈ More like \"" + rec.title + "\"");
+        titleLabel.setTextFill(TEXT_COLOR);
+        
+        Glow titleGlow = new Glow();
+        titleGlow.setLevel(0.4);
+        titleLabel.setEffect(titleGlow);
+        
+        String subtitle = indexReady
+            ? "🎯 Similar titles across all categories"
+            : "⏳ Still building the similarity index - try again in a moment";
+        Label subtitleLabel = new Label(subtitle);
+        subtitleLabel.setTextFill(Color.rgb(190, 190, 190));
+        
+        header.getChildren().addAll(titleLabel, subtitleLabel);
+        applyHeaderLayout(header, layoutPlan);
+        return header;
+    }
+    
+    // Search and similar pages are not cached, but a resize relays out the one on screen
+    // so its results and scroll position survive
+    private void showResultsPage() {
+        List<Node> nodes = new ArrayList<>(contentArea.getChildren());
+        showPage(() -> { }, plan -> relayoutGridPage(nodes, plan, plan.resultCards));
+    }
+    
+    // SEARCH PAGE - Typeahead results (NO SCROLL)
+    private void loadSearchResults(String query) {
+        cancelPageLoad();
+        markOperation("search");
+        contentArea.getChildren().clear();
+        currentView = "Search";
+        
+        TitleIndex index = titleIndex;
+        List<Recommendation> results = new ArrayList<>();
+        boolean closeMatches = false;
+        if (index != null) {
+            long started = System.nanoTime();
+            results.addAll(index.search(query, SEARCH_RESULT_LIMIT));
+            
+            // Top up with typo-tolerant matches when prefix matching comes up short, in
+            // whatever is left of the keystroke's budget
+            if (results.size() < SEARCH_RESULT_LIMIT) {
+                Set<Integer> shown = new HashSet<>();
+                for (Recommendation rec : results) {
+                    shown.add(rec.id);
+                }
+                long budget = Math.max(0, FUZZY_SEARCH_BUDGET_NANOS - (System.nanoTime() - started));
+                for (Recommendation rec : index.fuzzySearch(query, SEARCH_RESULT_LIMIT, budget)) {
+                    if (results.size() < SEARCH_RESULT_LIMIT && shown.add(rec.id)) {
+                        results.add(rec);
+                        closeMatches = true;
+                    }
+                }
+            }
+        }
+        
+        // Header - same share of the height as the genre page, results take the rest
+        VBox headerSection = createSearchHeader(query, results.size(), closeMatches, index != null);
+        contentArea.getChildren().add(headerSection);
+        
+        VBox resultsSection = createFixedRecommendationsSection(results, layoutPlan.resultCards);
+        contentArea.getChildren().add(resultsSection);
+        showResultsPage();
+    }
+    
+    private VBox createSearchHeader(String query, int resultCount, boolean closeMatches, boolean indexReady) {
+        VBox header = new VBox();
+        header.setAlignment(Pos.TOP_LEFT);
+        
+        Label titleLabel = new Label("🔍 Results for \"" + query.trim() + "\"");
+        titleLabel.setTextFill(TEXT_COLOR);
+        
+        // Add glow effect
+        Glow titleGlow = new Glow();
+        titleGlow.setLevel(0.4);
+        titleLabel.setEffect(titleGlow);
+        
+        String status;
+        if (!indexReady) {
+            status = "⏳ Building search index, results will appear shortly...";
+        } else if (resultCount == 0) {
+            status = "No titles match your search";
+        } else if (closeMatches) {
+            status = "🎯 Top " + resultCount + " matches, including close spellings - click any card to explore";
+        } else {
+            status = "🎯 Top " + resultCount + " matches - click any card to explore";
+        }
+        Label subtitleLabel = new Label(status);
+        subtitleLabel.setTextFill(Color.rgb(190, 190, 190));
+        
+        header.getChildren().addAll(titleLabel, subtitleLabel);
+        applyHeaderLayout(header, layoutPlan);
+        return header;
+    }
+    
+    // Shown instead of a page whose preparation failed
+    private void showPageLoadError(Runnable retry) {
+        markOperation("show page load error");
+        contentArea.getChildren().clear();
+        currentView = "Error";
+        shownPage = null;
+        
+        VBox errorBox = new VBox();
+        errorBox.setAlignment(Pos.CENTER);
+        double availableHeight = contentArea.getPrefHeight();
+        errorBox.setPrefHeight(availableHeight);
+        errorBox.setMaxHeight(availableHeight);
+        errorBox.setSpacing(Math.max(15, availableHeight * 0.05));
+        
+        Label errorText = new Label("⚠ This page could not be loaded");
+        errorText.setFont(Font.font("Segoe UI", FontWeight.BOLD, Math.max(12, availableHeight * 0.04)));
+        errorText.setTextFill(TEXT_COLOR);
+        
+        Button retryButton = new Button("↻ Try again");
+        retryButton.setCursor(Cursor.HAND);
+        retryButton.setFont(Font.font("Segoe UI", FontWeight.NORMAL, Math.max(11, availableHeight * 0.025)));
+        retryButton.getStyleClass().add("related-chip");
+        retryButton.setOnAction(e -> retry.run());
+        
+        errorBox.getChildren().addAll(errorText, retryButton);
+        contentArea.getChildren().add(errorBox);
+    }
     
     private void showFixedLoadingAnimation() {
         contentArea.getChildren().clear();
@@ -2011,7 +3805,7 @@ private VBox createFixedRecommendationCard(Recommendation rec, double cardWidth,
         fadeTransition.setToValue(1.0);
         fadeTransition.setCycleCount(FadeTransition.INDEFINITE);
         fadeTransition.setAutoReverse(true);
-        fadeTransition.play();
+        ViewLifecycle.animate(loadingText, fadeTransition);
         
         // Progress text with responsive font
         Label progressText = new Label("Please wait...");
@@ -2024,7 +3818,12 @@ private VBox createFixedRecommendationCard(Recommendation rec, double cardWidth,
     }
     
     private Image loadLocalImage(String imagePath, double width, double height) {
+        // Images added since the pack was built are read from their files
+        AssetPack pack = assetPack;
         try {
+            if (pack != null && pack.contains(imagePath)) {
+                return new Image(pack.open(imagePath), width, height, true, true);
+            }
             File imageFile = new File(imagePath);
             if (imageFile.exists()) {
                 String fileUrl = imageFile.toURI().toString();
@@ -2032,6 +3831,9 @@ private VBox createFixedRecommendationCard(Recommendation rec, double cardWidth,
             } else {
                 System.out.println("Image not found: " + imagePath);
                 File placeholderFile = new File("images/placeholder.png");
+                if (pack != null && pack.contains("images/placeholder.png")) {
+                    return new Image(pack.open("images/placeholder.png"), width, height, true, true);
+                }
                 if (placeholderFile.exists()) {
                     String placeholderUrl = placeholderFile.toURI().toString();
                     return new Image(placeholderUrl, width, height, true, true);
@@ -2055,19 +3857,4834 @@ private VBox createFixedRecommendationCard(Recommendation rec, double cardWidth,
         }
     }
     
-    public static class Recommendation {
-        public String title;
-        public String imagePath;
-        public String redirectUrl;
+    // Latency histogram in the style of HdrHistogram: values (microseconds) fall into
+    // power-of-two ranges, each split into 64 linear sub-buckets, so every recorded value
+    // is kept to within 1.6% at a fixed size of about 11 KB, whatever the count.
+    static final class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 7;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int HALF = SUB_BUCKETS / 2;
+        // Longer frames than this (one minute) are recorded as this
+        private static final long HIGHEST_MICROS = 60_000_000L;
         
-        public Recommendation(String title, String imagePath, String redirectUrl) {
-            this.title = title;
-            this.imagePath = imagePath;
-            this.redirectUrl = redirectUrl;
+        private final long[] counts = new long[index(HIGHEST_MICROS) + 1];
+        private long total;
+        private long max;
+        private long sum;
+        
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            // Shift that brings the value into [HALF, SUB_BUCKETS)
+            int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+            return SUB_BUCKETS + (shift - 1) * HALF + (int) ((value >> shift) - HALF);
+        }
+        
+        // Highest value that falls into the bucket
+        private static long valueAt(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int shift = (index - SUB_BUCKETS) / HALF + 1;
+            long subBucket = (index - SUB_BUCKETS) % HALF + HALF;
+            return (subBucket << shift) + (1L << shift) - 1;
+        }
+        
+        void record(long micros) {
+            long value = Math.max(0, Math.min(micros, HIGHEST_MICROS));
+            counts[index(value)]++;
+            total++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+        
+        long count() {
+            return total;
+        }
+        
+        long max() {
+            return max;
+        }
+        
+        double mean() {
+            return total == 0 ? 0 : (double) sum / total;
+        }
+        
+        long percentile(double percentile) {
+            if (total == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(valueAt(i), max);
+                }
+            }
+            return max;
+        }
+        
+        void reset() {
+            Arrays.fill(counts, 0);
+            total = 0;
+            max = 0;
+            sum = 0;
         }
     }
     
-    public static void main(String[] args) {
-        launch(args);
+    // Frame timing per view. A frame is the time between two pulses, which includes the
+    // event handling before the pulse (a click that builds a page shows up here); the
+    // pulse is the FX-thread work inside it, up to the end of layout. A pulse over 16 ms,
+    // or a frame long enough to have dropped one, is logged as jank together with the view
+    // and the operation that was running. Used on the FX thread only.
+    static final class FrameStats {
+        static final long JANK_PULSE_MICROS = 16_000;
+        static final long JANK_FRAME_MICROS = 2 * 16_667;
+        private static final int RECENT_JANK_LIMIT = 50;
+        
+        private final Map<String, LatencyHistogram> frames = new TreeMap<>();
+        private final Map<String, LatencyHistogram> pulses = new TreeMap<>();
+        private final Deque<String> recentJank = new ArrayDeque<>();
+        private long jankCount;
+        private String operation;
+        
+        // Names what the app is doing until the end of the current frame
+        void operation(String operation) {
+            this.operation = operation;
+        }
+        
+        void recordFrame(String view, long micros) {
+            frames.computeIfAbsent(view, v -> new LatencyHistogram()).record(micros);
+            if (micros > JANK_FRAME_MICROS) {
+                jank(String.format("%.1f ms frame", micros / 1000.0), view);
+            }
+        }
+        
+        // Ends the frame: the operation only applies to the frame it ran in
+        void recordPulse(String view, long micros) {
+            pulses.computeIfAbsent(view, v -> new LatencyHistogram()).record(micros);
+            if (micros > JANK_PULSE_MICROS) {
+                jank(String.format("%.1f ms pulse", micros / 1000.0), view);
+            }
+            operation = null;
+        }
+        
+        private void jank(String what, String view) {
+            jankCount++;
+            String event = String.format("%tT Jank: %s in %s%s", System.currentTimeMillis(), what, view,
+                operation != null ? " (" + operation + ")" : "");
+            System.out.println(event);
+            recentJank.addLast(event);
+            if (recentJank.size() > RECENT_JANK_LIMIT) {
+                recentJank.removeFirst();
+            }
+        }
+        
+        long jankCount() {
+            return jankCount;
+        }
+        
+        // One line for the on-screen overlay
+        String summary(String view) {
+            LatencyHistogram frame = frames.get(view);
+            LatencyHistogram pulse = pulses.get(view);
+            if (frame == null || pulse == null) {
+                return view + ": no frames yet";
+            }
+            return String.format("%s  frame p50 %.1f / p99 %.1f ms  pulse p99 %.1f / max %.1f ms  jank %d",
+                view, frame.percentile(50) / 1000.0, frame.percentile(99) / 1000.0,
+                pulse.percentile(99) / 1000.0, pulse.max() / 1000.0, jankCount);
+        }
+        
+        // Per-view table since the last dump, followed by the recent jank events
+        String dump() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("%tF %<tT frame stats%n", System.currentTimeMillis()));
+            out.append(String.format("%-10s %8s %9s %9s %9s %9s %9s %9s%n",
+                "view", "frames", "frame p50", "frame p99", "frame max", "pulse p50", "pulse p99", "pulse max"));
+            for (Map.Entry<String, LatencyHistogram> entry : frames.entrySet()) {
+                LatencyHistogram frame = entry.getValue();
+                LatencyHistogram pulse = pulses.getOrDefault(entry.getKey(), new LatencyHistogram());
+                out.append(String.format("%-10s %8d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", entry.getKey(), frame.count(),
+                    frame.percentile(50) / 1000.0, frame.percentile(99) / 1000.0, frame.max() / 1000.0,
+                    pulse.percentile(50) / 1000.0, pulse.percentile(99) / 1000.0, pulse.max() / 1000.0));
+            }
+            for (String event : recentJank) {
+                out.append(event).append(System.lineSeparator());
+            }
+            return out.toString();
+        }
+        
+        void reset() {
+            for (LatencyHistogram histogram : frames.values()) {
+                histogram.reset();
+            }
+            for (LatencyHistogram histogram : pulses.values()) {
+                histogram.reset();
+            }
+            recentJank.clear();
+        }
+    }
+    
+    // Startup phases as milliseconds since launch, marked from whichever thread finishes
+    // them. The first mark of a phase wins, so work repeated after a catalog reload is not
+    // counted again. The timeline is printed once the app is interactive; phases that end
+    // after that are printed as they arrive.
+    static final class StartupTimeline {
+        private final long startNanos = System.nanoTime();
+        private final Map<String, Long> phases = new LinkedHashMap<>();
+        private boolean printed;
+        
+        synchronized void mark(String phase) {
+            if (phases.containsKey(phase)) {
+                return;
+            }
+            long millis = (System.nanoTime() - startNanos) / 1_000_000;
+            phases.put(phase, millis);
+            if (printed) {
+                System.out.println(String.format("Startup: %s at %,d ms", phase, millis));
+            }
+        }
+        
+        synchronized void print() {
+            printed = true;
+            StringBuilder out = new StringBuilder("Startup timeline:");
+            for (Map.Entry<String, Long> phase : phases.entrySet()) {
+                out.append(String.format("%n  %,7d ms  %s", phase.getValue(), phase.getKey()));
+            }
+            System.out.println(out);
+        }
+    }
+    
+    // Attach/detach hooks for what a page owns. Attach runs when the owner node enters
+    // a scene and detach when it leaves, so a page that is swapped out (or parked in the
+    // page cache) stops its animations and releases its registrations, and gets them back
+    // when it returns. The hooks are held only by the owner node, so nothing outside a
+    // discarded page keeps it reachable.
+    static final class ViewLifecycle {
+        // Page animations currently playing, hooks currently attached, and hooks per owner
+        // (weakly, so owners that were collected drop out); checked by the navigation soak
+        private static int runningAnimations;
+        private static int attachedHooks;
+        private static final Map<Node, Integer> hooks = new WeakHashMap<>();
+        
+        static void onAttach(Node owner, Runnable attach, Runnable detach) {
+            hooks.merge(owner, 1, Integer::sum);
+            owner.sceneProperty().addListener((obs, oldScene, newScene) -> {
+                if (oldScene == null && newScene != null) {
+                    attachedHooks++;
+                    attach.run();
+                } else if (oldScene != null && newScene == null) {
+                    attachedHooks--;
+                    detach.run();
+                }
+            });
+            if (owner.getScene() != null) {
+                attachedHooks++;
+                attach.run();
+            }
+        }
+        
+        // Plays the animation only while its owner is on screen; paused animations are
+        // taken off the pulse timer, which would otherwise keep the page alive
+        static void animate(Node owner, Animation animation) {
+            onAttach(owner, () -> {
+                if (animation.getStatus() != Animation.Status.RUNNING) {
+                    runningAnimations++;
+                    animation.play();
+                }
+            }, () -> {
+                if (animation.getStatus() == Animation.Status.RUNNING) {
+                    runningAnimations--;
+                    animation.pause();
+                }
+            });
+        }
+        
+        static int runningAnimations() {
+            return runningAnimations;
+        }
+        
+        static int attachedHooks() {
+            return attachedHooks;
+        }
+        
+        // Hooks whose owner is still reachable; call after a GC
+        static int reachableHooks() {
+            int total = 0;
+            for (int count : hooks.values()) {
+                total += count;
+            }
+            return total;
+        }
+    }
+    
+    // Sizes that follow from the window, computed once per frame while it is resized.
+    // Page builders read these instead of querying the stage themselves, and grid pages
+    // push them to their live nodes when the window settles in another layout bucket.
+    static final class LayoutPlan {
+        final double windowWidth;
+        final double windowHeight;
+        final boolean sidebarVisible;
+        final double contentWidth;
+        final double contentHeight;
+        final double padding;
+        final double spacing;
+        // Grid pages (genre, search, similar): header, cards and related row
+        final double headerHeight;
+        final double headerPadding;
+        final double headerSpacing;
+        final double headerTitleFont;
+        final double headerSubtitleFont;
+        final CardMetrics genreCards;
+        final CardMetrics resultCards;
+        final double relatedHeight;
+        final double relatedTitleFont;
+        final double relatedChipHeight;
+        final double relatedChipFont;
+        
+        LayoutPlan(double windowWidth, double windowHeight, boolean sidebarVisible) {
+            this.windowWidth = windowWidth;
+            this.windowHeight = windowHeight;
+            this.sidebarVisible = sidebarVisible;
+            contentWidth = sidebarVisible ? windowWidth - 250 : windowWidth;
+            contentHeight = windowHeight - 60; // Subtract toggle button height
+            // Responsive padding and spacing that scale with the window
+            padding = Math.max(10, Math.min(30, windowWidth * 0.015));
+            spacing = Math.max(10, contentHeight * 0.02);
+            
+            headerHeight = contentHeight * GRID_HEADER_SHARE;
+            headerPadding = Math.max(8, headerHeight * 0.1);
+            headerSpacing = Math.max(6, headerHeight * 0.15);
+            headerTitleFont = Math.max(14, headerHeight * 0.28);
+            headerSubtitleFont = Math.max(7, headerHeight * 0.1);
+            genreCards = new CardMetrics(windowWidth, sidebarVisible, contentHeight * GENRE_GRID_SHARE);
+            resultCards = new CardMetrics(windowWidth, sidebarVisible, contentHeight * RESULTS_GRID_SHARE);
+            relatedHeight = contentHeight * RELATED_ROW_SHARE;
+            relatedTitleFont = Math.max(12, relatedHeight * 0.16);
+            relatedChipHeight = Math.max(28, relatedHeight * 0.4);
+            relatedChipFont = Math.max(11, relatedChipHeight * 0.35);
+        }
+        
+        // Window size rounded to LAYOUT_BUCKET_PX; pages are built for one bucket
+        String bucket() {
+            return (int) (windowWidth / LAYOUT_BUCKET_PX) + "x" + (int) (windowHeight / LAYOUT_BUCKET_PX);
+        }
+    }
+    
+    // Recommendations section of a given height: its spacing, and the size, text layout and
+    // fonts of the cards in its grid (four columns across the window, two rows in view)
+    static final class CardMetrics {
+        static final double GAP = 20;
+        final double sectionHeight;
+        final double sectionSpacing;
+        final double width;
+        final double height;
+        final double imageWidth;
+        final double imageHeight;
+        final double textHeight;
+        final double textPadding;
+        final double textSpacing;
+        final double titleFont;
+        final double hintFont;
+        final double placeholderFont;
+        
+        CardMetrics(double windowWidth, boolean sidebarVisible, double sectionHeight) {
+            this.sectionHeight = sectionHeight;
+            sectionSpacing = Math.max(10, sectionHeight * 0.03);
+            // Account for sidebar and padding
+            double availableWidth = windowWidth - (sidebarVisible ? 310 : 60);
+            double availableHeight = sectionHeight - sectionSpacing * 3;
+            // Big cards that still fit on screen, capped on large screens
+            width = Math.min(280, Math.max(200, (availableWidth - (GRID_COLUMNS - 1) * GAP) / GRID_COLUMNS));
+            height = Math.min(320, Math.max(240, (availableHeight - (GRID_VISIBLE_ROWS - 1) * GAP) / GRID_VISIBLE_ROWS));
+            imageWidth = width - 12;
+            imageHeight = height * 0.72;
+            textHeight = height * 0.28;
+            textPadding = Math.max(10, width * 0.05);
+            textSpacing = Math.max(5, textHeight * 0.12);
+            titleFont = Math.max(14, height * 0.06);
+            hintFont = Math.max(11, height * 0.04);
+            placeholderFont = Math.max(14, height * 0.06);
+        }
+    }
+    
+    // Built pages, kept so that going back to one is a node swap rather than a rebuild.
+    // A small LRU of page subtrees keyed by view, category and genre. Each page records
+    // the layout bucket (window size and sidebar) it is laid out for; one with a relayout
+    // is resized in place when shown in another bucket, the rest are built again. A
+    // catalog reload removes the pages of the genres it changed.
+    static final class PageCache {
+        private final Map<String, Page> pages;
+        
+        PageCache(int capacity) {
+            pages = new LinkedHashMap<String, Page>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Page> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+        
+        static String key(String view, String category, String genre) {
+            return view + '\u0000' + category + '\u0000' + genre;
+        }
+        
+        Page get(String key) {
+            return pages.get(key);
+        }
+        
+        void put(String key, Page page) {
+            pages.put(key, page);
+        }
+        
+        void clear() {
+            pages.clear();
+        }
+        
+        int size() {
+            return pages.size();
+        }
+        
+        void remove(String key) {
+            pages.remove(key);
+        }
+        
+        static final class Page {
+            final List<Node> nodes;
+            final Runnable onShow;
+            // Applies a new plan to these nodes; null if the page has to be built again
+            final Consumer<LayoutPlan> relayout;
+            String layoutBucket;
+            
+            Page(List<Node> nodes, Runnable onShow, Consumer<LayoutPlan> relayout, String layoutBucket) {
+                this.nodes = nodes;
+                this.onShow = onShow;
+                this.relayout = relayout;
+                this.layoutBucket = layoutBucket;
+            }
+        }
+    }
+    
+    // Decodes card images on a small pool of background threads. Requests are
+    // ordered by priority (cards on screen before prefetches) and then by arrival,
+    // so a page fills in reading order. Concurrent requests for the same image
+    // share one decode, a visible request promotes a queued prefetch, and a
+    // request cancelled before its decode starts is taken off the queue.
+    // Decoded images go into an ImageCache; sizes are rounded up to SIZE_BUCKET
+    // pixels so nearby window sizes share entries (the ImageView scales the last
+    // few pixels). Methods are called, and callbacks delivered, on the FX thread.
+    static final class ImageLoader {
+        static final int VISIBLE = 0;
+        static final int PREFETCH = 1;
+        private static final int SIZE_BUCKET = 32;
+        
+        private final ThreadPoolExecutor pool;
+        private final AtomicLong sequence = new AtomicLong();
+        private final Map<String, Job> jobs = new HashMap<>();
+        private final ImageCache cache;
+        private final ThumbnailCache thumbnails;
+        private volatile AssetPack assetPack;
+        
+        ImageLoader(long cacheBytes, ThumbnailCache thumbnails) {
+            cache = new ImageCache(cacheBytes);
+            this.thumbnails = thumbnails;
+            int threads = Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors() - 1));
+            pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "image-decode");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            });
+            pool.allowCoreThreadTimeOut(true);
+        }
+        
+        // onLoaded receives the image, or null if neither it nor the placeholder image exists
+        Request load(String path, double width, double height, int priority, Consumer<Image> onLoaded) {
+            width = bucket(width);
+            height = bucket(height);
+            String key = key(path, width, height);
+            Image cached = cache.get(key);
+            Request request = new Request(onLoaded);
+            if (cached != null) {
+                onLoaded.accept(cached);
+                return request;
+            }
+            Job job = enqueue(key, path, width, height, priority);
+            request.job = job;
+            job.requests.add(request);
+            return request;
+        }
+        
+        void prefetch(String path, double width, double height) {
+            width = bucket(width);
+            height = bucket(height);
+            String key = key(path, width, height);
+            if (!cache.contains(key)) {
+                enqueue(key, path, width, height, PREFETCH).prefetch = true;
+            }
+        }
+        
+        // Drops queued prefetches that no card is waiting for
+        void cancelPrefetches() {
+            for (Iterator<Job> it = jobs.values().iterator(); it.hasNext(); ) {
+                Job job = it.next();
+                if (job.prefetch && job.requests.isEmpty() && pool.remove(job)) {
+                    it.remove();
+                }
+            }
+        }
+        
+        private Job enqueue(String key, String path, double width, double height, int priority) {
+            Job job = jobs.get(key);
+            if (job == null) {
+                job = new Job(key, path, width, height, priority, sequence.getAndIncrement());
+                jobs.put(key, job);
+                pool.execute(job);
+            } else if (priority < job.priority && pool.remove(job)) {
+                // Still queued - move it ahead of the prefetches
+                job.priority = priority;
+                job.order = sequence.getAndIncrement();
+                pool.execute(job);
+            }
+            return job;
+        }
+        
+        private void finish(Job job, Image image) {
+            jobs.remove(job.key);
+            if (image != null) {
+                cache.put(job.key, image);
+            }
+            for (Request request : job.requests) {
+                request.onLoaded.accept(image);
+            }
+        }
+        
+        ImageCache cache() {
+            return cache;
+        }
+        
+        // Once set, packed images are read from the pack with no per-image file checks;
+        // only images the pack lacks (added since it was built) fall back to their files
+        void setAssetPack(AssetPack pack) {
+            assetPack = pack;
+        }
+        
+        private static double bucket(double size) {
+            return Math.ceil(size / SIZE_BUCKET) * SIZE_BUCKET;
+        }
+        
+        private static String key(String path, double width, double height) {
+            return path + '@' + Math.round(width) + 'x' + Math.round(height);
+        }
+        
+        // Runs on a decode thread; backgroundLoading is off so the constructor does the decode here
+        private Image decode(String path, double width, double height) {
+            AssetPack pack = assetPack;
+            if (pack != null && pack.contains(path)) {
+                return decodePacked(pack, path, width, height);
+            }
+            try {
+                File imageFile = new File(path);
+                if (!imageFile.exists()) {
+                    System.out.println("Image not found: " + path);
+                    if (pack != null && pack.contains("images/placeholder.png")) {
+                        return decodePacked(pack, "images/placeholder.png", width, height);
+                    }
+                    imageFile = new File("images/placeholder.png");
+                    if (!imageFile.exists()) {
+                        return null;
+                    }
+                }
+                // Read the card-sized copy rather than the full-size poster when there is one
+                Path thumbnail = thumbnails == null ? null : thumbnails.thumbnail(imageFile.toPath(), (int) width, (int) height);
+                if (thumbnail != null) {
+                    imageFile = thumbnail.toFile();
+                }
+                Image image = new Image(imageFile.toURI().toString(), width, height, true, true, false);
+                return image.isError() ? null : image;
+            } catch (Exception e) {
+                System.out.println("Error loading image: " + path + " - " + e.getMessage());
+                return null;
+            }
+        }
+        
+        private Image decodePacked(AssetPack pack, String entry, double width, double height) {
+            try {
+                Path thumbnail = thumbnails == null ? null : thumbnails.thumbnail(pack, entry, (int) width, (int) height);
+                if (thumbnail != null) {
+                    Image image = new Image(thumbnail.toUri().toString(), width, height, true, true, false);
+                    if (!image.isError()) {
+                        return image;
+                    }
+                    thumbnails.forget(thumbnail);
+                }
+                Image image = new Image(pack.open(entry), width, height, true, true);
+                return image.isError() ? null : image;
+            } catch (Exception e) {
+                System.out.println("Error loading image: " + entry + " - " + e.getMessage());
+                return null;
+            }
+        }
+        
+        final class Request {
+            private final Consumer<Image> onLoaded;
+            private Job job;
+            
+            private Request(Consumer<Image> onLoaded) {
+                this.onLoaded = onLoaded;
+            }
+            
+            void cancel() {
+                if (job == null || !job.requests.remove(this)) {
+                    return;
+                }
+                if (job.requests.isEmpty() && !job.prefetch && pool.remove(job)) {
+                    jobs.remove(job.key);
+                }
+            }
+        }
+        
+        private final class Job implements Runnable, Comparable<Job> {
+            final String key;
+            final String path;
+            final double width;
+            final double height;
+            final List<Request> requests = new ArrayList<>();
+            int priority;
+            long order;
+            boolean prefetch;
+            
+            Job(String key, String path, double width, double height, int priority, long order) {
+                this.key = key;
+                this.path = path;
+                this.width = width;
+                this.height = height;
+                this.priority = priority;
+                this.order = order;
+            }
+            
+            @Override
+            public void run() {
+                Image image = decode(path, width, height);
+                Platform.runLater(() -> finish(this, image));
+            }
+            
+            @Override
+            public int compareTo(Job other) {
+                return priority != other.priority ? Integer.compare(priority, other.priority) : Long.compare(order, other.order);
+            }
+        }
+    }
+    
+    // Decoded images bounded by a byte budget (width x height x 4 per image), with
+    // W-TinyLFU eviction: new images enter a small LRU window, and an image pushed
+    // out of the window only displaces the main area's LRU victim if a
+    // count-min sketch says it is requested more often. The main area is a
+    // segmented LRU (probation, then protected after a second hit). This keeps
+    // the posters of genres being flipped between resident even when a long
+    // scroll of one-off images passes through. Used from the FX thread only.
+    static final class ImageCache {
+        private final long budget;
+        private final long windowBudget;
+        private final long protectedBudget;
+        private final LinkedHashMap<String, Image> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<String, Image> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<String, Image> protectedArea = new LinkedHashMap<>(16, 0.75f, true);
+        private long windowBytes;
+        private long probationBytes;
+        private long protectedBytes;
+        private final FrequencySketch sketch;
+        private long hits;
+        private long misses;
+        
+        ImageCache(long budget) {
+            this.budget = budget;
+            windowBudget = Math.max(1, budget / 100);
+            protectedBudget = (budget - windowBudget) * 4 / 5;
+            // Sized for poster-sized entries (roughly 256 x 256 pixels)
+            sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(256, budget / (256 * 256 * 4))));
+        }
+        
+        Image get(String key) {
+            sketch.increment(key);
+            Image image = window.get(key);
+            if (image == null) {
+                image = protectedArea.get(key);
+            }
+            if (image == null) {
+                image = probation.remove(key);
+                if (image != null) {
+                    probationBytes -= bytes(image);
+                    promote(key, image);
+                }
+            }
+            if (image != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            return image;
+        }
+        
+        boolean contains(String key) {
+            return window.containsKey(key) || probation.containsKey(key) || protectedArea.containsKey(key);
+        }
+        
+        void put(String key, Image image) {
+            long size = bytes(image);
+            if (size > budget || contains(key)) {
+                return;
+            }
+            window.put(key, image);
+            windowBytes += size;
+            
+            // Images leaving the window compete with the main area's victim for admission
+            while (windowBytes > windowBudget && window.size() > 1) {
+                Map.Entry<String, Image> candidate = removeEldest(window);
+                windowBytes -= bytes(candidate.getValue());
+                admit(candidate.getKey(), candidate.getValue());
+            }
+        }
+        
+        long hits() {
+            return hits;
+        }
+        
+        long misses() {
+            return misses;
+        }
+        
+        double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+        
+        long usedBytes() {
+            return windowBytes + probationBytes + protectedBytes;
+        }
+        
+        String stats() {
+            return String.format("Image cache: %d hits, %d misses (%.1f%% hit rate), %d images, %.1f of %.1f MB",
+                hits, misses, hitRate() * 100, window.size() + probation.size() + protectedArea.size(),
+                usedBytes() / 1048576.0, budget / 1048576.0);
+        }
+        
+        private void admit(String key, Image image) {
+            long size = bytes(image);
+            long mainBudget = budget - windowBudget;
+            while (probationBytes + protectedBytes + size > mainBudget) {
+                LinkedHashMap<String, Image> victims = !probation.isEmpty() ? probation : protectedArea;
+                if (victims.isEmpty()) {
+                    return;
+                }
+                String victimKey = victims.keySet().iterator().next();
+                if (sketch.frequency(key) <= sketch.frequency(victimKey)) {
+                    // Rejected: the image already resident is used at least as often
+                    return;
+                }
+                Image victim = victims.remove(victimKey);
+                if (victims == probation) {
+                    probationBytes -= bytes(victim);
+                } else {
+                    protectedBytes -= bytes(victim);
+                }
+            }
+            probation.put(key, image);
+            probationBytes += size;
+        }
+        
+        // A second hit moves an image to the protected segment, demoting its LRU if full
+        private void promote(String key, Image image) {
+            protectedArea.put(key, image);
+            protectedBytes += bytes(image);
+            while (protectedBytes > protectedBudget && protectedArea.size() > 1) {
+                Map.Entry<String, Image> demoted = removeEldest(protectedArea);
+                protectedBytes -= bytes(demoted.getValue());
+                probation.put(demoted.getKey(), demoted.getValue());
+                probationBytes += bytes(demoted.getValue());
+            }
+        }
+        
+        private static Map.Entry<String, Image> removeEldest(LinkedHashMap<String, Image> map) {
+            Iterator<Map.Entry<String, Image>> it = map.entrySet().iterator();
+            Map.Entry<String, Image> eldest = new AbstractMap.SimpleEntry<>(it.next());
+            it.remove();
+            return eldest;
+        }
+        
+        static long bytes(Image image) {
+            return (long) image.getWidth() * (long) image.getHeight() * 4;
+        }
+        
+        // Count-min sketch of 4-bit counters, halved periodically so old
+        // popularity fades; four counters per key, picked from one long
+        static final class FrequencySketch {
+            private final long[] table;
+            private final int mask;
+            private final int sampleSize;
+            private int additions;
+            
+            FrequencySketch(int expectedEntries) {
+                int size = Integer.highestOneBit(Math.max(16, expectedEntries) - 1) << 1;
+                table = new long[size];
+                mask = size - 1;
+                sampleSize = 10 * size;
+            }
+            
+            void increment(String key) {
+                int hash = spread(key.hashCode());
+                boolean added = false;
+                for (int i = 0; i < 4; i++) {
+                    int index = indexOf(hash, i);
+                    int shift = counterShift(hash, i);
+                    if (((table[index] >>> shift) & 0xF) < 15) {
+                        table[index] += 1L << shift;
+                        added = true;
+                    }
+                }
+                if (added && ++additions >= sampleSize) {
+                    reset();
+                }
+            }
+            
+            int frequency(String key) {
+                int hash = spread(key.hashCode());
+                int frequency = 15;
+                for (int i = 0; i < 4; i++) {
+                    frequency = Math.min(frequency, (int) ((table[indexOf(hash, i)] >>> counterShift(hash, i)) & 0xF));
+                }
+                return frequency;
+            }
+            
+            private void reset() {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+                }
+                additions /= 2;
+            }
+            
+            private int indexOf(int hash, int i) {
+                int h = (hash + i * 0x9E3779B9) * 0x85EBCA6B;
+                return (h ^ (h >>> 16)) & mask;
+            }
+            
+            // Each of the four hashes uses its own 4-bit counter within the long
+            private static int counterShift(int hash, int i) {
+                return (((hash >>> (i * 8)) & 3) + i * 4) * 4;
+            }
+            
+            private static int spread(int hash) {
+                hash *= 0x9E3779B9;
+                return hash ^ (hash >>> 15);
+            }
+        }
+    }
+    
+    // Card-resolution copies of the full-size posters, generated on first use.
+    // Each thumbnail sits next to a small .meta file recording the source's
+    // modification time, size and SHA-256; a changed mtime or size triggers a
+    // rehash, and only a different hash regenerates the thumbnail (so touching
+    // or re-copying a poster is cheap). Thumbnails are JPEG unless the source has
+    // transparency. Called from the decode threads; the loader never asks for
+    // the same path and size on two threads at once.
+    static final class ThumbnailCache {
+        private static final float JPEG_QUALITY = 0.85f;
+        
+        private final Path dir;
+        // Content-addressed thumbnails of asset pack entries, listed on first use
+        private volatile Map<String, Path> knownThumbnails;
+        
+        ThumbnailCache(Path dir) {
+            this.dir = dir;
+        }
+        
+        // Path of an up-to-date thumbnail fitting width x height, or null to use the source
+        Path thumbnail(Path source, int width, int height) {
+            try {
+                Path base = dir.resolve(sha256Hex(source.toAbsolutePath().normalize().toString()
+                    .getBytes(StandardCharsets.UTF_8)).substring(0, 32) + "-" + width + "x" + height);
+                Path metaFile = base.resolveSibling(base.getFileName() + ".meta");
+                BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+                long modified = attributes.lastModifiedTime().toMillis();
+                long size = attributes.size();
+                
+                String contentHash = null;
+                if (Files.exists(metaFile)) {
+                    String[] meta = new String(Files.readAllBytes(metaFile), StandardCharsets.UTF_8).trim().split(" ");
+                    if (meta.length == 4) {
+                        Path thumbnail = base.resolveSibling(base.getFileName() + "." + meta[3]);
+                        if (Files.exists(thumbnail)) {
+                            if (meta[0].equals(Long.toString(modified)) && meta[1].equals(Long.toString(size))) {
+                                return thumbnail;
+                            }
+                            contentHash = sha256Hex(Files.readAllBytes(source));
+                            if (meta[2].equals(contentHash)) {
+                                writeMeta(metaFile, modified, size, contentHash, meta[3]);
+                                return thumbnail;
+                            }
+                        }
+                    }
+                }
+                if (contentHash == null) {
+                    contentHash = sha256Hex(Files.readAllBytes(source));
+                }
+                return generate(source, base, metaFile, width, height, modified, size, contentHash);
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Thumbnail unavailable for " + source + ": " + e.getMessage());
+                return null;
+            }
+        }
+        
+        private Path generate(Path source, Path base, Path metaFile, int width, int height,
+                              long modified, long size, String contentHash) throws IOException {
+            BufferedImage original = ImageIO.read(source.toFile());
+            if (original == null) {
+                return null;
+            }
+            Path thumbnail = write(original, base, width, height);
+            String format = thumbnail.getFileName().toString().endsWith(".png") ? "png" : "jpg";
+            writeMeta(metaFile, modified, size, contentHash, format);
+            return thumbnail;
+        }
+        
+        // Thumbnail for an asset pack entry. The pack index already holds each
+        // entry's content hash, so thumbnails are named by it and need no
+        // validation; the directory is listed once instead of checked per card.
+        Path thumbnail(AssetPack pack, String path, int width, int height) {
+            try {
+                Map<String, Path> known = knownThumbnails();
+                String name = pack.hash(path) + "-" + width + "x" + height;
+                Path thumbnail = known.get(name);
+                if (thumbnail != null) {
+                    return thumbnail;
+                }
+                BufferedImage original;
+                try (InputStream in = pack.open(path)) {
+                    original = ImageIO.read(in);
+                }
+                if (original == null) {
+                    return null;
+                }
+                thumbnail = write(original, dir.resolve(name), width, height);
+                known.put(name, thumbnail);
+                return thumbnail;
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Thumbnail unavailable for " + path + ": " + e.getMessage());
+                return null;
+            }
+        }
+        
+        // Drops a thumbnail that turned out to be missing or unreadable
+        void forget(Path thumbnail) {
+            Map<String, Path> known = knownThumbnails;
+            if (known != null) {
+                known.values().remove(thumbnail);
+            }
+        }
+        
+        private Map<String, Path> knownThumbnails() throws IOException {
+            Map<String, Path> known = knownThumbnails;
+            if (known == null) {
+                synchronized (this) {
+                    if (knownThumbnails == null) {
+                        Map<String, Path> listed = new ConcurrentHashMap<>();
+                        if (Files.isDirectory(dir)) {
+                            try (Stream<Path> files = Files.list(dir)) {
+                                files.forEach(file -> {
+                                    String fileName = file.getFileName().toString();
+                                    int dot = fileName.lastIndexOf('.');
+                                    if (fileName.endsWith(".jpg") || fileName.endsWith(".png")) {
+                                        listed.put(fileName.substring(0, dot), file);
+                                    }
+                                });
+                            }
+                        }
+                        knownThumbnails = listed;
+                    }
+                    known = knownThumbnails;
+                }
+            }
+            return known;
+        }
+        
+        private Path write(BufferedImage original, Path base, int width, int height) throws IOException {
+            double scale = Math.min(1.0, Math.min((double) width / original.getWidth(), (double) height / original.getHeight()));
+            int targetWidth = Math.max(1, (int) Math.round(original.getWidth() * scale));
+            int targetHeight = Math.max(1, (int) Math.round(original.getHeight() * scale));
+            boolean alpha = original.getColorModel().hasAlpha();
+            BufferedImage scaled = downscale(original, targetWidth, targetHeight, alpha);
+            
+            String format = alpha ? "png" : "jpg";
+            Files.createDirectories(dir);
+            Path thumbnail = base.resolveSibling(base.getFileName() + "." + format);
+            Path temp = Files.createTempFile(dir, "thumb", ".tmp");
+            try {
+                if (alpha) {
+                    ImageIO.write(scaled, "png", temp.toFile());
+                } else {
+                    writeJpeg(scaled, temp);
+                }
+                Files.move(temp, thumbnail, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            return thumbnail;
+        }
+        
+        // Halves the image repeatedly before the final bilinear step, which keeps
+        // detail that a single large bilinear reduction would alias away
+        private static BufferedImage downscale(BufferedImage image, int targetWidth, int targetHeight, boolean alpha) {
+            int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+            BufferedImage current = image;
+            int currentWidth = image.getWidth();
+            int currentHeight = image.getHeight();
+            do {
+                currentWidth = Math.max(targetWidth, currentWidth / 2);
+                currentHeight = Math.max(targetHeight, currentHeight / 2);
+                BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+                Graphics2D g = next.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+                g.dispose();
+                current = next;
+            } while (currentWidth != targetWidth || currentHeight != targetHeight);
+            return current;
+        }
+        
+        private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+        }
+        
+        private static void writeMeta(Path metaFile, long modified, long size, String contentHash, String format) throws IOException {
+            String meta = modified + " " + size + " " + contentHash + " " + format + "\n";
+            Files.write(metaFile, meta.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        private static String sha256Hex(byte[] data) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+                StringBuilder hex = new StringBuilder(digest.length * 2);
+                for (byte b : digest) {
+                    hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+                }
+                return hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+    
+    // All poster, team and logo images in one file: an index of path -> offset,
+    // length and content hash, followed by the raw image bytes. The file is
+    // memory-mapped and entries are handed to Image as InputStreams over slices
+    // of the mapping, so reading an image copies nothing and needs no open or
+    // stat of its own. Built from images/ and logo.png when missing, and rebuilt
+    // in the background at launch when isStale() finds a newer file under images/;
+    // images not in the pack yet are read from their files meanwhile.
+    //
+    // Each index entry also carries a tiny preview of the image (at most
+    // PREVIEW_WIDTH x PREVIEW_HEIGHT raw RGB pixels, about 1 KB) that cards
+    // show blurred while the real image decodes.
+    //
+    // Layout: int magic, int version, int count, then per entry u16 path length,
+    // UTF-8 path, long offset, int length, 16-byte hash (truncated SHA-256),
+    // u16 preview length and preview bytes (width, height, RGB rows), then the data.
+    static final class AssetPack {
+        private static final int MAGIC = 0x534C5241; // "SLRA"
+        private static final int VERSION = 2;
+        private static final int HASH_BYTES = 16;
+        static final int PREVIEW_WIDTH = 16;
+        static final int PREVIEW_HEIGHT = 24;
+        
+        private final ByteBuffer buffer;
+        private final Map<String, long[]> entries;
+        private final Map<String, String> hashes;
+        
+        private AssetPack(ByteBuffer buffer, Map<String, long[]> entries, Map<String, String> hashes) {
+            this.buffer = buffer;
+            this.entries = entries;
+            this.hashes = hashes;
+        }
+        
+        static AssetPack open(Path path) throws IOException {
+            ByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not an asset pack: " + path);
+            }
+            if (buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported asset pack version");
+            }
+            int count = buffer.getInt();
+            Map<String, long[]> entries = new HashMap<>(count * 2);
+            Map<String, String> hashes = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(name);
+                long offset = buffer.getLong();
+                int length = buffer.getInt();
+                byte[] hash = new byte[HASH_BYTES];
+                buffer.get(hash);
+                int previewLength = buffer.getShort() & 0xFFFF;
+                int previewOffset = buffer.position();
+                buffer.position(previewOffset + previewLength);
+                if (offset < 0 || length < 0 || offset + length > buffer.capacity()) {
+                    throw new IOException("Corrupt asset pack index");
+                }
+                String key = new String(name, StandardCharsets.UTF_8);
+                entries.put(key, new long[] { offset, length, previewOffset, previewLength });
+                hashes.put(key, hex(hash));
+            }
+            return new AssetPack(buffer, entries, hashes);
+        }
+        
+        // True if a file or directory under the roots changed after the pack was written.
+        // Adding or removing a poster touches its directory, replacing one touches the file.
+        static boolean isStale(Path base, List<String> roots, Path target) throws IOException {
+            FileTime built = Files.getLastModifiedTime(target);
+            for (String root : roots) {
+                Path start = base.resolve(root);
+                if (!Files.exists(start)) {
+                    continue;
+                }
+                try (Stream<Path> files = Files.walk(start)) {
+                    if (files.anyMatch(file -> lastModified(file).compareTo(built) > 0)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        
+        private static FileTime lastModified(Path file) {
+            try {
+                return Files.getLastModifiedTime(file);
+            } catch (IOException e) {
+                return FileTime.fromMillis(Long.MAX_VALUE);
+            }
+        }
+        
+        // Packs image files under the given roots (files or directories, relative to base)
+        static void build(Path base, List<String> roots, Path target) throws IOException {
+            List<String> names = new ArrayList<>();
+            for (String root : roots) {
+                Path start = base.resolve(root);
+                if (!Files.exists(start)) {
+                    continue;
+                }
+                try (Stream<Path> files = Files.walk(start)) {
+                    files.filter(file -> Files.isRegularFile(file) && isImage(file))
+                        .map(file -> base.relativize(file).toString().replace('\\', '/'))
+                        .forEach(names::add);
+                }
+            }
+            Collections.sort(names);
+            
+            long[] lengths = new long[names.size()];
+            byte[][] hashes = new byte[names.size()][];
+            byte[][] previews = new byte[names.size()][];
+            long indexBytes = 12;
+            for (int i = 0; i < names.size(); i++) {
+                Path file = base.resolve(names.get(i));
+                lengths[i] = Files.size(file);
+                hashes[i] = Arrays.copyOf(sha256(file), HASH_BYTES);
+                previews[i] = preview(file);
+                indexBytes += 2 + names.get(i).getBytes(StandardCharsets.UTF_8).length + 8 + 4 + HASH_BYTES
+                    + 2 + previews[i].length;
+            }
+            
+            Path absolute = target.toAbsolutePath();
+            Path temp = Files.createTempFile(absolute.getParent(), "assets", ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(names.size());
+                    long offset = indexBytes;
+                    for (int i = 0; i < names.size(); i++) {
+                        byte[] name = names.get(i).getBytes(StandardCharsets.UTF_8);
+                        out.writeShort(name.length);
+                        out.write(name);
+                        out.writeLong(offset);
+                        out.writeInt((int) lengths[i]);
+                        out.write(hashes[i]);
+                        out.writeShort(previews[i].length);
+                        out.write(previews[i]);
+                        offset += lengths[i];
+                    }
+                    for (String name : names) {
+                        Files.copy(base.resolve(name), out);
+                    }
+                }
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        
+        boolean contains(String path) {
+            return entries.containsKey(normalize(path));
+        }
+        
+        // Preview as width, height and RGB bytes, or null if the entry has none
+        byte[] preview(String path) {
+            long[] entry = entries.get(normalize(path));
+            if (entry == null || entry[3] < 2) {
+                return null;
+            }
+            byte[] preview = new byte[(int) entry[3]];
+            ByteBuffer slice = buffer.duplicate();
+            slice.position((int) entry[2]);
+            slice.get(preview);
+            return preview;
+        }
+        
+        // Decodes with subsampling, so even large posters only cost a fraction of a full decode
+        private static byte[] preview(Path file) {
+            try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+                Iterator<ImageReader> readers = in == null ? Collections.emptyIterator() : ImageIO.getImageReaders(in);
+                if (!readers.hasNext()) {
+                    return new byte[0];
+                }
+                ImageReader reader = readers.next();
+                BufferedImage image;
+                try {
+                    reader.setInput(in, true, true);
+                    int step = Math.max(1, Math.min(reader.getWidth(0) / (PREVIEW_WIDTH * 4), reader.getHeight(0) / (PREVIEW_HEIGHT * 4)));
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    param.setSourceSubsampling(step, step, 0, 0);
+                    image = reader.read(0, param);
+                } finally {
+                    reader.dispose();
+                }
+                
+                double scale = Math.min((double) PREVIEW_WIDTH / image.getWidth(), (double) PREVIEW_HEIGHT / image.getHeight());
+                int width = Math.max(1, (int) Math.round(image.getWidth() * Math.min(1.0, scale)));
+                int height = Math.max(1, (int) Math.round(image.getHeight() * Math.min(1.0, scale)));
+                BufferedImage small = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = small.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(image, 0, 0, width, height, null);
+                g.dispose();
+                
+                byte[] preview = new byte[2 + width * height * 3];
+                preview[0] = (byte) width;
+                preview[1] = (byte) height;
+                int n = 2;
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        int rgb = small.getRGB(x, y);
+                        preview[n++] = (byte) (rgb >> 16);
+                        preview[n++] = (byte) (rgb >> 8);
+                        preview[n++] = (byte) rgb;
+                    }
+                }
+                return preview;
+            } catch (IOException | RuntimeException e) {
+                return new byte[0];
+            }
+        }
+        
+        // Hex content hash from the index
+        String hash(String path) {
+            return hashes.get(normalize(path));
+        }
+        
+        int size() {
+            return entries.size();
+        }
+        
+        // Stream over the entry's bytes inside the mapping
+        InputStream open(String path) throws IOException {
+            long[] entry = entries.get(normalize(path));
+            if (entry == null) {
+                throw new FileNotFoundException(path);
+            }
+            ByteBuffer slice = buffer.duplicate();
+            slice.limit((int) (entry[0] + entry[1]));
+            slice.position((int) entry[0]);
+            return new ByteBufferInputStream(slice.slice());
+        }
+        
+        private static String normalize(String path) {
+            String normalized = path.replace('\\', '/');
+            return normalized.startsWith("./") ? normalized.substring(2) : normalized;
+        }
+        
+        private static boolean isImage(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".png")
+                || name.endsWith(".gif") || name.endsWith(".bmp");
+        }
+        
+        private static byte[] sha256(Path file) throws IOException {
+            try (InputStream in = Files.newInputStream(file)) {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                byte[] chunk = new byte[1 << 16];
+                int read;
+                while ((read = in.read(chunk)) > 0) {
+                    digest.update(chunk, 0, read);
+                }
+                return digest.digest();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        
+        private static String hex(byte[] bytes) {
+            StringBuilder hex = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        }
+        
+        private static final class ByteBufferInputStream extends InputStream {
+            private final ByteBuffer buffer;
+            
+            ByteBufferInputStream(ByteBuffer buffer) {
+                this.buffer = buffer;
+            }
+            
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            }
+            
+            @Override
+            public int read(byte[] target, int offset, int length) {
+                if (length == 0) {
+                    return 0;
+                }
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(length, buffer.remaining());
+                buffer.get(target, offset, count);
+                return count;
+            }
+            
+            @Override
+            public long skip(long n) {
+                int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+                buffer.position(buffer.position() + count);
+                return count;
+            }
+            
+            @Override
+            public int available() {
+                return buffer.remaining();
+            }
+        }
+    }
+    
+    public static class Recommendation {
+        public int id = -1;
+        public String title;
+        public String imagePath;
+        public String redirectUrl;
+        
+        public Recommendation(String title, String imagePath, String redirectUrl) {
+            this.title = title;
+            this.imagePath = imagePath;
+            this.redirectUrl = redirectUrl;
+        }
+        
+        public Recommendation(int id, String title, String imagePath, String redirectUrl) {
+            this(title, imagePath, redirectUrl);
+            this.id = id;
+        }
+        
+        // Identifies the item across catalog reloads, unlike id
+        public String itemKey() {
+            return title + '\u0000' + redirectUrl;
+        }
+    }
+    
+    // Read-only view of the recommendation catalog. Items have dense int ids and
+    // every genre occupies a contiguous id range, in category/genre order.
+    public interface Catalog {
+        Set<String> categories();
+        
+        Set<String> genres(String category);
+        
+        int count(String category, String genre);
+        
+        List<Recommendation> recommendations(String category, String genre);
+        
+        int size();
+        
+        Recommendation get(int id);
+        
+        // Single-string key for a category/genre pair, used to track per-genre state
+        static String genreKey(String category, String genre) {
+            return category + '\u0000' + genre;
+        }
+        
+        static String categoryOf(String genreKey) {
+            return genreKey.substring(0, genreKey.indexOf('\u0000'));
+        }
+        
+        static String genreOf(String genreKey) {
+            return genreKey.substring(genreKey.indexOf('\u0000') + 1);
+        }
+    }
+    
+    // Catalog backed by a memory-mapped binary file. Opening it only parses the
+    // category/genre offset tables; item records are decoded when they are read.
+    //
+    // Layout (big-endian):
+    //   int magic, int version, int itemCount, int categoryCount
+    //   per category: str name, int genreCount
+    //     per genre:  str name, int firstId, int count
+    //   int[itemCount] record offsets
+    //   per item:     str title, str imagePath, str redirectUrl
+    // where str is an unsigned short byte length followed by UTF-8 bytes.
+    static final class MappedCatalog implements Catalog {
+        private static final int MAGIC = 0x534C5243; // "SLRC"
+        private static final int VERSION = 1;
+        
+        private final ByteBuffer buffer;
+        private final int itemCount;
+        private final int recordTable;
+        private final Map<String, Map<String, int[]>> index = new LinkedHashMap<>();
+        
+        private MappedCatalog(ByteBuffer buffer) throws IOException {
+            this.buffer = buffer;
+            if (buffer.limit() < 16 || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a catalog file");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported catalog version " + buffer.getInt(4));
+            }
+            itemCount = buffer.getInt(8);
+            int categoryCount = buffer.getInt(12);
+            
+            int pos = 16;
+            for (int c = 0; c < categoryCount; c++) {
+                String category = readString(pos);
+                pos += 2 + stringLength(pos);
+                int genreCount = buffer.getInt(pos);
+                pos += 4;
+                
+                Map<String, int[]> genreRanges = new LinkedHashMap<>();
+                for (int g = 0; g < genreCount; g++) {
+                    String genre = readString(pos);
+                    pos += 2 + stringLength(pos);
+                    genreRanges.put(genre, new int[] {buffer.getInt(pos), buffer.getInt(pos + 4)});
+                    pos += 8;
+                }
+                index.put(category, genreRanges);
+            }
+            recordTable = pos;
+        }
+        
+        static MappedCatalog open(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Catalog file too large: " + channel.size());
+                }
+                // The mapping stays valid after the channel is closed
+                return new MappedCatalog(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+        
+        // Writes to a temporary sibling first so a half-written file is never opened
+        static void write(Path path, Catalog source) throws IOException {
+            Path absolute = path.toAbsolutePath();
+            Path temp = Files.createTempFile(absolute.getParent(), "catalog", ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    write(out, source);
+                }
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        
+        // Ids are rewritten in category/genre order so each genre is a contiguous range
+        static void write(OutputStream target, Catalog source) throws IOException {
+            int headerSize = 16;
+            int itemCount = 0;
+            for (String category : source.categories()) {
+                headerSize += 2 + utf8Length(category) + 4;
+                for (String genre : source.genres(category)) {
+                    headerSize += 2 + utf8Length(genre) + 8;
+                    itemCount += source.count(category, genre);
+                }
+            }
+            
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(itemCount);
+            out.writeInt(source.categories().size());
+            
+            int nextId = 0;
+            for (String category : source.categories()) {
+                writeString(out, category);
+                out.writeInt(source.genres(category).size());
+                for (String genre : source.genres(category)) {
+                    int count = source.count(category, genre);
+                    writeString(out, genre);
+                    out.writeInt(nextId);
+                    out.writeInt(count);
+                    nextId += count;
+                }
+            }
+            
+            // Record offset table
+            int offset = headerSize + itemCount * 4;
+            for (String category : source.categories()) {
+                for (String genre : source.genres(category)) {
+                    for (Recommendation rec : source.recommendations(category, genre)) {
+                        out.writeInt(offset);
+                        offset += 6 + utf8Length(rec.title) + utf8Length(rec.imagePath) + utf8Length(rec.redirectUrl);
+                    }
+                }
+            }
+            
+            for (String category : source.categories()) {
+                for (String genre : source.genres(category)) {
+                    for (Recommendation rec : source.recommendations(category, genre)) {
+                        writeString(out, rec.title);
+                        writeString(out, rec.imagePath);
+                        writeString(out, rec.redirectUrl);
+                    }
+                }
+            }
+            out.flush();
+        }
+        
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IOException("String too long for catalog: " + bytes.length + " bytes");
+            }
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+        
+        private static int utf8Length(String value) {
+            return value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length;
+        }
+        
+        private int stringLength(int pos) {
+            return buffer.getShort(pos) & 0xFFFF;
+        }
+        
+        // Absolute reads only, so concurrent readers never share buffer position
+        private String readString(int pos) {
+            int length = stringLength(pos);
+            byte[] bytes = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(pos + 2);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        
+        @Override
+        public Set<String> categories() {
+            return Collections.unmodifiableSet(index.keySet());
+        }
+        
+        @Override
+        public Set<String> genres(String category) {
+            Map<String, int[]> genreRanges = index.get(category);
+            return genreRanges == null ? Collections.emptySet() : Collections.unmodifiableSet(genreRanges.keySet());
+        }
+        
+        @Override
+        public int count(String category, String genre) {
+            int[] range = range(category, genre);
+            return range == null ? 0 : range[1];
+        }
+        
+        @Override
+        public List<Recommendation> recommendations(String category, String genre) {
+            int[] range = range(category, genre);
+            if (range == null) {
+                return Collections.emptyList();
+            }
+            int first = range[0];
+            int count = range[1];
+            return new AbstractList<Recommendation>() {
+                @Override
+                public Recommendation get(int index) {
+                    if (index < 0 || index >= count) {
+                        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+                    }
+                    return MappedCatalog.this.get(first + index);
+                }
+                
+                @Override
+                public int size() {
+                    return count;
+                }
+            };
+        }
+        
+        @Override
+        public int size() {
+            return itemCount;
+        }
+        
+        @Override
+        public Recommendation get(int id) {
+            if (id < 0 || id >= itemCount) {
+                throw new IndexOutOfBoundsException("Item id: " + id);
+            }
+            int pos = buffer.getInt(recordTable + id * 4);
+            String title = readString(pos);
+            pos += 2 + stringLength(pos);
+            String imagePath = readString(pos);
+            pos += 2 + stringLength(pos);
+            String redirectUrl = readString(pos);
+            return new Recommendation(id, title, imagePath, redirectUrl);
+        }
+        
+        private int[] range(String category, String genre) {
+            Map<String, int[]> genreRanges = index.get(category);
+            return genreRanges == null ? null : genreRanges.get(genre);
+        }
+    }
+    
+    // Growable, optionally sorted list of primitive ints (avoids Integer boxing)
+    static final class IntList {
+        private int[] values;
+        private int size;
+        
+        IntList() {
+            this(8);
+        }
+        
+        IntList(int capacity) {
+            values = new int[Math.max(1, capacity)];
+        }
+        
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        // Inserts into a list kept in ascending order; duplicates are ignored
+        void addSorted(int value) {
+            int pos = Arrays.binarySearch(values, 0, size, value);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, pos, values, pos + 1, size - pos);
+            values[pos] = value;
+            size++;
+        }
+        
+        void removeSorted(int value) {
+            int pos = Arrays.binarySearch(values, 0, size, value);
+            if (pos >= 0) {
+                System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+                size--;
+            }
+        }
+        
+        boolean containsSorted(int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+        
+        // Index of the first element >= value at or after from, galloping ahead
+        // before binary searching, so a forward merge over a long list is cheap
+        int seekSorted(int from, int value) {
+            int bound = 1;
+            while (from + bound < size && values[from + bound] < value) {
+                bound <<= 1;
+            }
+            int pos = Arrays.binarySearch(values, from + (bound >> 1), Math.min(from + bound + 1, size), value);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+        
+        void sort() {
+            Arrays.sort(values, 0, size);
+        }
+        
+        // Drops every value whose bit is set, in one compacting pass
+        void removeAll(BitSet removed) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!removed.get(values[i])) {
+                    values[kept++] = values[i];
+                }
+            }
+            size = kept;
+        }
+        
+        int get(int index) {
+            return values[index];
+        }
+        
+        void set(int index, int value) {
+            values[index] = value;
+        }
+        
+        int removeLast() {
+            return values[--size];
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        boolean isEmpty() {
+            return size == 0;
+        }
+        
+        void clear() {
+            size = 0;
+        }
+    }
+    
+    // Open-addressing int -> int hash map for sparse rows; keys must be >= 0
+    static final class IntIntMap {
+        private static final int EMPTY = -1;
+        private int[] keys;
+        private int[] values;
+        private int size;
+        
+        IntIntMap() {
+            keys = new int[8];
+            values = new int[8];
+            Arrays.fill(keys, EMPTY);
+        }
+        
+        int get(int key) {
+            int slot = find(key);
+            return keys[slot] == key ? values[slot] : 0;
+        }
+        
+        // Adds delta to the value for key and returns the new value
+        int add(int key, int delta) {
+            int slot = find(key);
+            if (keys[slot] != key) {
+                if ((size + 1) * 4 > keys.length * 3) {
+                    grow();
+                    slot = find(key);
+                }
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] += delta;
+            return values[slot];
+        }
+        
+        void remove(int key) {
+            int slot = find(key);
+            if (keys[slot] != key) {
+                return;
+            }
+            // Backward-shift deletion keeps probe chains intact without tombstones
+            int mask = keys.length - 1;
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (keys[next] != EMPTY) {
+                int home = hash(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[hole] = EMPTY;
+            values[hole] = 0;
+            size--;
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        int[] keys() {
+            int[] result = new int[size];
+            int n = 0;
+            for (int key : keys) {
+                if (key != EMPTY) {
+                    result[n++] = key;
+                }
+            }
+            return result;
+        }
+        
+        private int find(int key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+        
+        private static int hash(int key) {
+            return key * 0x9E3779B9 >>> 7;
+        }
+        
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = find(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+    
+    // Inverted index over titles for typeahead search. Every title token is
+    // indexed under its edge n-grams ("wick" -> w, wi, wic, wick), so each query
+    // token is a single posting-list lookup and multi-word queries intersect the
+    // lists. Posting lists are ordered by title length, then doc, which is the
+    // order results are ranked in, so a search stops after the first `limit`
+    // matches. Whole-title prefix matches rank first and come from leadPostings,
+    // the grams of each title's first word, checked against the first few words
+    // kept per doc - neither walk decodes a title from the catalog.
+    //
+    // Postings hold index-local document ids; docIds maps them to catalog ids.
+    // That indirection lets update() apply a new catalog version incrementally:
+    // unchanged genres only have their (shifted) catalog ids rewritten, and only
+    // changed genres are re-tokenized.
+    //
+    // For typo tolerance the distinct title tokens (terms) are also indexed by
+    // their trigrams. fuzzySearch() finds terms sharing enough trigrams with each
+    // query token, verifies them with a bounded edit distance, and then walks
+    // only those terms' postings - never the whole catalog.
+    static final class TitleIndex {
+        private static final int MAX_GRAM = 12;
+        // Fuzzy matches gathered before ranking; bounds query cost on huge posting lists
+        private static final int CANDIDATE_FACTOR = 4;
+        // Title words kept per doc for prefix checks; longer queries decode the title
+        private static final int LEAD_WORDS = 4;
+        // How often (in loop iterations) fuzzy search checks its deadline
+        private static final int DEADLINE_CHECK_INTERVAL = 256;
+        
+        private final Map<String, IntList> postings = new HashMap<>();
+        // Grams of each title's first word only; the candidates for whole-title prefix matches
+        private final Map<String, IntList> leadPostings = new HashMap<>();
+        private final Map<String, IntList> genreDocs = new HashMap<>();
+        private final IntList freeDocs = new IntList();
+        private int[] docIds = new int[1024];
+        // Title length per doc, the sort key of every posting list
+        private int[] docLengths = new int[1024];
+        // Term ids of each title's first LEAD_WORDS words, -1 past its last word
+        private int[] docLeadTerms = new int[1024 * LEAD_WORDS];
+        private int docCount;
+        private Catalog catalog;
+        
+        // Term dictionary for fuzzy matching; termRefs counts docs using each term
+        private final Map<String, Integer> termIds = new HashMap<>();
+        private final List<String> terms = new ArrayList<>();
+        private final IntList termRefs = new IntList(1024);
+        private final IntList freeTerms = new IntList();
+        private final Map<String, IntList> trigramTerms = new HashMap<>();
+        
+        synchronized void build(Catalog source) {
+            postings.clear();
+            leadPostings.clear();
+            genreDocs.clear();
+            freeDocs.clear();
+            docCount = 0;
+            termIds.clear();
+            terms.clear();
+            termRefs.clear();
+            freeTerms.clear();
+            trigramTerms.clear();
+            catalog = source;
+            // Doc ids only grow here, so appending keeps every posting list sorted
+            for (String category : source.categories()) {
+                for (String genre : source.genres(category)) {
+                    IntList docs = new IntList(source.count(category, genre));
+                    for (Recommendation rec : source.recommendations(category, genre)) {
+                        docs.add(addDoc(rec.id, rec.title, null));
+                    }
+                    genreDocs.put(Catalog.genreKey(category, genre), docs);
+                }
+            }
+            for (IntList list : postings.values()) {
+                sortByLength(list);
+            }
+            for (IntList list : leadPostings.values()) {
+                sortByLength(list);
+            }
+        }
+        
+        // Moves the index to the next catalog version. changedGenres holds Catalog.genreKey()s
+        // whose items differ; every other genre must hold the same titles in the same order.
+        synchronized void update(Catalog next, Set<String> changedGenres) {
+            Catalog previous = catalog;
+            Map<String, IntList> nextGenreDocs = new HashMap<>();
+            Map<String, List<Recommendation>> reindex = new LinkedHashMap<>();
+            List<IntList> removed = new ArrayList<>();
+            for (String category : next.categories()) {
+                for (String genre : next.genres(category)) {
+                    String key = Catalog.genreKey(category, genre);
+                    IntList docs = genreDocs.remove(key);
+                    List<Recommendation> items = next.recommendations(category, genre);
+                    
+                    if (docs != null && !changedGenres.contains(key) && docs.size() == items.size()) {
+                        // Same items - only the id range may have moved
+                        int first = items.isEmpty() ? 0 : items.get(0).id;
+                        for (int i = 0; i < docs.size(); i++) {
+                            docIds[docs.get(i)] = first + i;
+                        }
+                        nextGenreDocs.put(key, docs);
+                    } else {
+                        if (docs != null) {
+                            removed.add(docs);
+                        }
+                        reindex.put(key, items);
+                    }
+                }
+            }
+            // Genres that no longer exist
+            removed.addAll(genreDocs.values());
+            removeDocs(removed, previous);
+            
+            // Reused doc ids land mid-list, so touched lists are re-sorted once at the end
+            Set<IntList> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Map.Entry<String, List<Recommendation>> genre : reindex.entrySet()) {
+                IntList docs = new IntList(genre.getValue().size());
+                for (Recommendation rec : genre.getValue()) {
+                    docs.add(addDoc(rec.id, rec.title, touched));
+                }
+                nextGenreDocs.put(genre.getKey(), docs);
+            }
+            for (IntList list : touched) {
+                sortByLength(list);
+            }
+            
+            genreDocs.clear();
+            genreDocs.putAll(nextGenreDocs);
+            catalog = next;
+        }
+        
+        // Whole-title prefix matches first, then shorter (closer) titles, then doc order.
+        // Both walks visit docs in that order, so each stops as soon as it has enough.
+        synchronized List<Recommendation> search(String query, int limit) {
+            List<String> tokens = tokenize(query);
+            if (tokens.isEmpty() || catalog == null) {
+                return Collections.emptyList();
+            }
+            
+            // One posting list per query token, shortest first
+            List<IntList> lists = new ArrayList<>();
+            for (String token : tokens) {
+                IntList list = postings.get(gram(token));
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(IntList::size));
+            
+            List<Recommendation> results = new ArrayList<>();
+            Set<Integer> prefixDocs = new HashSet<>();
+            IntList leads = leadPostings.get(gram(tokens.get(0)));
+            // Before the last query word, title words must match exactly, so they must be terms
+            int[] queryTerms = new int[tokens.size() - 1];
+            for (int t = 0; t < queryTerms.length; t++) {
+                queryTerms[t] = termIds.getOrDefault(tokens.get(t), -1);
+                if (queryTerms[t] < 0) {
+                    leads = null;
+                }
+            }
+            if (leads != null) {
+                for (int i = 0; i < leads.size() && results.size() < limit; i++) {
+                    int doc = leads.get(i);
+                    if (!startsWithQuery(doc, tokens, queryTerms, lists)) {
+                        continue;
+                    }
+                    prefixDocs.add(doc);
+                    results.add(catalog.get(docIds[doc]));
+                }
+            }
+            
+            // Every prefix match has been seen unless the walk above stopped at the limit
+            IntList smallest = lists.get(0);
+            boolean verify = needsVerification(tokens);
+            int[] cursors = new int[lists.size()];
+            for (int i = 0; i < smallest.size() && results.size() < limit; i++) {
+                int doc = smallest.get(i);
+                // All lists share one order, so the other lists are merged forward, not searched
+                boolean inAll = true;
+                for (int l = 1; l < lists.size() && inAll; l++) {
+                    IntList list = lists.get(l);
+                    cursors[l] = seek(list, cursors[l], doc);
+                    inAll = cursors[l] < list.size() && list.get(cursors[l]) == doc;
+                }
+                if (!inAll || prefixDocs.contains(doc)) {
+                    continue;
+                }
+                Recommendation rec = catalog.get(docIds[doc]);
+                // Tokens longer than the indexed grams are verified against the title
+                if (verify && !matchesAll(tokenize(rec.title), tokens)) {
+                    continue;
+                }
+                results.add(rec);
+            }
+            return results;
+        }
+        
+        // Whether the doc's words, joined by spaces, start with the query's. The first words
+        // are kept per doc; longer queries read the title from the catalog, once the posting
+        // lists show the doc has every query word somewhere.
+        private boolean startsWithQuery(int doc, List<String> tokens, int[] queryTerms, List<IntList> lists) {
+            int base = doc * LEAD_WORDS;
+            int known = Math.min(queryTerms.length, LEAD_WORDS);
+            for (int t = 0; t < known; t++) {
+                if (docLeadTerms[base + t] != queryTerms[t]) {
+                    return false;
+                }
+            }
+            String last = tokens.get(tokens.size() - 1);
+            if (queryTerms.length < LEAD_WORDS) {
+                int term = docLeadTerms[base + queryTerms.length];
+                return term >= 0 && terms.get(term).startsWith(last);
+            }
+            if (!contains(lists.get(0), doc) || !inAll(lists, doc)) {
+                return false;
+            }
+            List<String> words = tokenize(catalog.get(docIds[doc]).title);
+            if (words.size() < tokens.size()) {
+                return false;
+            }
+            for (int t = LEAD_WORDS; t < tokens.size() - 1; t++) {
+                if (!words.get(t).equals(tokens.get(t))) {
+                    return false;
+                }
+            }
+            return words.get(tokens.size() - 1).startsWith(last);
+        }
+        
+        private boolean inAll(List<IntList> lists, int doc) {
+            for (int l = 1; l < lists.size(); l++) {
+                if (!contains(lists.get(l), doc)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        // Index of the first doc at or after from that does not rank before doc, galloping
+        // ahead before binary searching, so a forward merge over a long list is cheap
+        private int seek(IntList list, int from, int doc) {
+            long key = rankKey(doc);
+            int bound = 1;
+            while (from + bound < list.size() && rankKey(list.get(from + bound)) < key) {
+                bound <<= 1;
+            }
+            int low = from + (bound >> 1);
+            int high = Math.min(from + bound, list.size());
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (rankKey(list.get(mid)) < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+        
+        private long rankKey(int doc) {
+            return (long) docLengths[doc] << 32 | doc;
+        }
+        
+        // Binary search in a posting list ordered by (title length, doc)
+        private boolean contains(IntList list, int doc) {
+            int length = docLengths[doc];
+            int low = 0;
+            int high = list.size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int other = list.get(mid);
+                int order = docLengths[other] != length
+                    ? Integer.compare(docLengths[other], length)
+                    : Integer.compare(other, doc);
+                if (order < 0) {
+                    low = mid + 1;
+                } else if (order > 0) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private void sortByLength(IntList list) {
+            long[] keys = new long[list.size()];
+            for (int i = 0; i < keys.length; i++) {
+                int doc = list.get(i);
+                keys[i] = (long) docLengths[doc] << 32 | doc;
+            }
+            Arrays.sort(keys);
+            for (int i = 0; i < keys.length; i++) {
+                list.set(i, (int) keys[i]);
+            }
+        }
+        
+        // Typo-tolerant search. Each query token may differ from a title word by a
+        // bounded number of edits (1 for short words, 2 from six letters); the last
+        // token may also be an unfinished word. When budgetNanos runs out the best
+        // matches found so far are returned.
+        synchronized List<Recommendation> fuzzySearch(String query, int limit, long budgetNanos) {
+            long deadline = System.nanoTime() + budgetNanos;
+            List<String> tokens = tokenize(query);
+            if (tokens.isEmpty() || catalog == null) {
+                return Collections.emptyList();
+            }
+            
+            // Posting lists each token could match, closest terms first
+            List<List<IntList>> sources = new ArrayList<>();
+            int driver = -1;
+            long driverSize = Long.MAX_VALUE;
+            for (int t = 0; t < tokens.size(); t++) {
+                String token = tokens.get(t);
+                boolean last = t == tokens.size() - 1;
+                List<IntList> lists = new ArrayList<>();
+                if (last) {
+                    IntList prefixDocs = postings.get(gram(token));
+                    if (prefixDocs != null) {
+                        lists.add(prefixDocs);
+                    }
+                }
+                for (int termId : similarTerms(token, maxEdits(token), deadline)) {
+                    IntList docs = postings.get(gram(terms.get(termId)));
+                    if (docs != null) {
+                        lists.add(docs);
+                    }
+                }
+                if (lists.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                long size = 0;
+                for (IntList list : lists) {
+                    size += list.size();
+                }
+                if (size < driverSize) {
+                    driverSize = size;
+                    driver = t;
+                }
+                sources.add(lists);
+            }
+            
+            // Walk the rarest token's postings and verify every token against each title
+            Map<Integer, Integer> scored = new HashMap<>();
+            List<Map.Entry<Recommendation, Integer>> candidates = new ArrayList<>();
+            int steps = 0;
+            walk:
+            for (IntList docs : sources.get(driver)) {
+                for (int i = 0; i < docs.size(); i++) {
+                    if (++steps % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                        break walk;
+                    }
+                    int doc = docs.get(i);
+                    if (scored.containsKey(doc)) {
+                        continue;
+                    }
+                    Recommendation rec = catalog.get(docIds[doc]);
+                    int score = matchScore(tokens, tokenize(rec.title));
+                    scored.put(doc, score);
+                    if (score >= 0) {
+                        candidates.add(new AbstractMap.SimpleEntry<>(rec, score));
+                        if (candidates.size() >= limit * CANDIDATE_FACTOR) {
+                            break walk;
+                        }
+                    }
+                }
+            }
+            
+            // Fewest edits first, then shorter titles
+            candidates.sort(Comparator.comparingInt((Map.Entry<Recommendation, Integer> match) -> match.getValue())
+                .thenComparingInt(match -> match.getKey().title.length()));
+            List<Recommendation> results = new ArrayList<>();
+            for (int i = 0; i < candidates.size() && i < limit; i++) {
+                results.add(candidates.get(i).getKey());
+            }
+            return results;
+        }
+        
+        // Terms within maxEdits of token, nearest first. Candidates come from the
+        // trigram lists; by the q-gram lemma a term within k edits shares at least
+        // (trigrams - 3k) trigrams with the token, so anything below that is skipped.
+        private List<Integer> similarTerms(String token, int maxEdits, long deadline) {
+            if (maxEdits == 0) {
+                Integer exact = termIds.get(token);
+                return exact == null ? Collections.emptyList() : Collections.singletonList(exact);
+            }
+            List<String> grams = trigrams(token);
+            Map<Integer, Integer> shared = new HashMap<>();
+            int steps = 0;
+            // Past the deadline both walks stop; terms counted or verified so far still count
+            count:
+            for (String trigram : grams) {
+                IntList ids = trigramTerms.get(trigram);
+                if (ids == null) {
+                    continue;
+                }
+                for (int i = 0; i < ids.size(); i++) {
+                    if (++steps % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                        break count;
+                    }
+                    shared.merge(ids.get(i), 1, Integer::sum);
+                }
+            }
+            
+            int threshold = Math.max(1, grams.size() - 3 * maxEdits);
+            List<int[]> matches = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> entry : shared.entrySet()) {
+                if (++steps % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                    break;
+                }
+                String term = terms.get(entry.getKey());
+                if (entry.getValue() < threshold || Math.abs(term.length() - token.length()) > maxEdits) {
+                    continue;
+                }
+                int distance = editDistance(token, term, maxEdits, false);
+                if (distance <= maxEdits) {
+                    matches.add(new int[] {entry.getKey(), distance});
+                }
+            }
+            matches.sort(Comparator.comparingInt(match -> match[1]));
+            List<Integer> result = new ArrayList<>(matches.size());
+            for (int[] match : matches) {
+                result.add(match[0]);
+            }
+            return result;
+        }
+        
+        // Total edits needed to match every query token to some title word, or -1.
+        // The last query token may match the start of a word (still being typed).
+        private static int matchScore(List<String> queryTokens, List<String> titleTokens) {
+            int total = 0;
+            for (int q = 0; q < queryTokens.size(); q++) {
+                String query = queryTokens.get(q);
+                int maxEdits = maxEdits(query);
+                boolean prefix = q == queryTokens.size() - 1;
+                int best = maxEdits + 1;
+                for (String token : titleTokens) {
+                    best = Math.min(best, editDistance(query, token, maxEdits, prefix));
+                    if (best == 0) {
+                        break;
+                    }
+                }
+                if (best > maxEdits) {
+                    return -1;
+                }
+                total += best;
+            }
+            return total;
+        }
+        
+        private static int maxEdits(String token) {
+            if (token.length() < 3) {
+                return 0;
+            }
+            return token.length() < 6 ? 1 : 2;
+        }
+        
+        // Optimal string alignment distance (adjacent swaps count as one edit),
+        // abandoned as soon as every cell in a row exceeds maxEdits. With prefix
+        // set, a matches any prefix of b.
+        static int editDistance(String a, String b, int maxEdits, boolean prefix) {
+            int n = a.length();
+            int m = b.length();
+            if (!prefix && Math.abs(n - m) > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] before = new int[m + 1];
+            int[] previous = new int[m + 1];
+            int[] current = new int[m + 1];
+            for (int j = 0; j <= m; j++) {
+                previous[j] = j;
+            }
+            for (int i = 1; i <= n; i++) {
+                current[0] = i;
+                int rowMin = current[0];
+                for (int j = 1; j <= m; j++) {
+                    int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                    if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                        value = Math.min(value, before[j - 2] + 1);
+                    }
+                    current[j] = value;
+                    rowMin = Math.min(rowMin, value);
+                }
+                if (rowMin > maxEdits) {
+                    return maxEdits + 1;
+                }
+                int[] recycled = before;
+                before = previous;
+                previous = current;
+                current = recycled;
+            }
+            if (!prefix) {
+                return Math.min(previous[m], maxEdits + 1);
+            }
+            int best = maxEdits + 1;
+            for (int j = 0; j <= m; j++) {
+                best = Math.min(best, previous[j]);
+            }
+            return best;
+        }
+        
+        // Trigrams of the token padded with boundary markers: "dune" -> $du, dun, une, ne$
+        private static List<String> trigrams(String token) {
+            String padded = "$" + token + "$";
+            List<String> grams = new ArrayList<>(padded.length() - 2);
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+            return grams;
+        }
+        
+        // touched collects lists that may need re-sorting; null when doc ids only grow
+        private int addDoc(int id, String title, Set<IntList> touched) {
+            int doc;
+            if (!freeDocs.isEmpty()) {
+                doc = freeDocs.removeLast();
+            } else {
+                if (docCount == docIds.length) {
+                    docIds = Arrays.copyOf(docIds, docCount * 2);
+                    docLengths = Arrays.copyOf(docLengths, docCount * 2);
+                    docLeadTerms = Arrays.copyOf(docLeadTerms, docCount * 2 * LEAD_WORDS);
+                }
+                doc = docCount++;
+            }
+            docIds[doc] = id;
+            docLengths[doc] = title.length();
+            // Words sharing a prefix ("La La Land") must post the doc once per gram
+            List<String> words = tokenize(title);
+            Set<String> grams = new LinkedHashSet<>();
+            for (String token : new LinkedHashSet<>(words)) {
+                addTerm(token);
+                for (int length = 1; length <= Math.min(MAX_GRAM, token.length()); length++) {
+                    grams.add(token.substring(0, length));
+                }
+            }
+            for (String gram : grams) {
+                post(postings, gram, doc, touched);
+            }
+            for (int t = 0; t < LEAD_WORDS; t++) {
+                docLeadTerms[doc * LEAD_WORDS + t] = t < words.size() ? termIds.get(words.get(t)) : -1;
+            }
+            if (!words.isEmpty()) {
+                String first = words.get(0);
+                for (int length = 1; length <= Math.min(MAX_GRAM, first.length()); length++) {
+                    post(leadPostings, first.substring(0, length), doc, touched);
+                }
+            }
+            return doc;
+        }
+        
+        private static void post(Map<String, IntList> index, String gram, int doc, Set<IntList> touched) {
+            IntList list = index.computeIfAbsent(gram, k -> new IntList(4));
+            list.add(doc);
+            if (touched != null) {
+                touched.add(list);
+            }
+        }
+        
+        private void addTerm(String term) {
+            Integer termId = termIds.get(term);
+            if (termId != null) {
+                termRefs.set(termId, termRefs.get(termId) + 1);
+                return;
+            }
+            if (!freeTerms.isEmpty()) {
+                termId = freeTerms.removeLast();
+                terms.set(termId, term);
+                termRefs.set(termId, 1);
+            } else {
+                termId = terms.size();
+                terms.add(term);
+                termRefs.add(1);
+            }
+            termIds.put(term, termId);
+            for (String trigram : trigrams(term)) {
+                trigramTerms.computeIfAbsent(trigram, k -> new IntList(4)).add(termId);
+            }
+        }
+        
+        // Batched so each affected posting list is compacted once, however many docs leave it
+        private void removeDocs(List<IntList> groups, Catalog previous) {
+            BitSet removed = new BitSet(docCount);
+            BitSet removedTerms = new BitSet(terms.size());
+            Set<String> keys = new HashSet<>();
+            Set<String> leadKeys = new HashSet<>();
+            Set<String> trigramKeys = new HashSet<>();
+            for (IntList docs : groups) {
+                for (int i = 0; i < docs.size(); i++) {
+                    int doc = docs.get(i);
+                    List<String> words = tokenize(previous.get(docIds[doc]).title);
+                    if (!words.isEmpty()) {
+                        String first = words.get(0);
+                        for (int length = 1; length <= Math.min(MAX_GRAM, first.length()); length++) {
+                            leadKeys.add(first.substring(0, length));
+                        }
+                    }
+                    for (String token : new LinkedHashSet<>(words)) {
+                        for (int length = 1; length <= Math.min(MAX_GRAM, token.length()); length++) {
+                            keys.add(token.substring(0, length));
+                        }
+                        // Drop terms no remaining doc uses
+                        int termId = termIds.get(token);
+                        termRefs.set(termId, termRefs.get(termId) - 1);
+                        if (termRefs.get(termId) == 0) {
+                            termIds.remove(token);
+                            removedTerms.set(termId);
+                            trigramKeys.addAll(trigrams(token));
+                            freeTerms.add(termId);
+                        }
+                    }
+                    removed.set(doc);
+                    docIds[doc] = -1;
+                    freeDocs.add(doc);
+                }
+            }
+            for (String key : keys) {
+                removeFrom(postings, key, removed);
+            }
+            for (String key : leadKeys) {
+                removeFrom(leadPostings, key, removed);
+            }
+            for (String key : trigramKeys) {
+                IntList list = trigramTerms.get(key);
+                if (list != null) {
+                    list.removeAll(removedTerms);
+                    if (list.isEmpty()) {
+                        trigramTerms.remove(key);
+                    }
+                }
+            }
+        }
+        
+        private static void removeFrom(Map<String, IntList> index, String key, BitSet removed) {
+            IntList list = index.get(key);
+            if (list != null) {
+                list.removeAll(removed);
+                if (list.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+        
+        private static boolean needsVerification(List<String> tokens) {
+            for (String token : tokens) {
+                if (token.length() > MAX_GRAM) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private static boolean matchesAll(List<String> titleTokens, List<String> queryTokens) {
+            for (String query : queryTokens) {
+                boolean found = false;
+                for (String token : titleTokens) {
+                    if (token.startsWith(query)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private static String gram(String token) {
+            return token.length() > MAX_GRAM ? token.substring(0, MAX_GRAM) : token;
+        }
+        
+        // Lower-cased, accent-stripped form used for matching ("Café" -> "cafe")
+        static String normalize(String text) {
+            String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+            StringBuilder out = new StringBuilder(decomposed.length());
+            for (int i = 0; i < decomposed.length(); i++) {
+                char c = decomposed.charAt(i);
+                if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                    out.append(c);
+                }
+            }
+            return out.toString().toLowerCase(Locale.ROOT);
+        }
+        
+        static List<String> tokenize(String text) {
+            List<String> tokens = new ArrayList<>();
+            String normalized = normalize(text);
+            int start = -1;
+            for (int i = 0; i <= normalized.length(); i++) {
+                boolean word = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+                if (word && start < 0) {
+                    start = i;
+                } else if (!word && start >= 0) {
+                    tokens.add(normalized.substring(start, i));
+                    start = -1;
+                }
+            }
+            return tokens;
+        }
+    }
+    
+    // Content-based "More like this". Every catalog item gets a small feature
+    // vector (hashed category, genre, title tokens, and the image folder and
+    // link host as metadata), normalised so that cosine similarity is a dot
+    // product. Vectors live in one flat float array indexed by catalog id, and
+    // an HNSW graph over them (layer-0 links in a flat int array, the few upper
+    // layers per node) answers k-NN queries by visiting a few hundred vectors
+    // instead of scanning all of them. Built once per catalog snapshot, which it
+    // keeps so that ids it returns are read from the catalog they belong to;
+    // queries share a visited-marks array and must come from one thread.
+    static final class SimilarityIndex {
+        static final int DIM = 32;
+        private static final int M = 16;
+        private static final int M0 = 2 * M;
+        private static final int EF_CONSTRUCTION = 100;
+        private static final int EF_SEARCH = 64;
+        
+        private final Catalog catalog;
+        private final int size;
+        // itemKey() hash in the high half, id in the low half, sorted - finds items by key
+        private final long[] keyHashes;
+        private final float[] vectors;
+        private final int[] links0;
+        private final int[][] upperLinks;
+        private final byte[] levels;
+        private final int[] visited;
+        private int visitStamp;
+        private int entryPoint = -1;
+        private int maxLevel = -1;
+        private final Random random = new Random(42);
+        private final double levelMultiplier = 1 / Math.log(M);
+        
+        private SimilarityIndex(Catalog catalog) {
+            this.catalog = catalog;
+            this.size = catalog.size();
+            keyHashes = new long[size];
+            vectors = new float[size * DIM];
+            links0 = new int[size * (M0 + 1)];
+            upperLinks = new int[size][];
+            levels = new byte[size];
+            visited = new int[size];
+        }
+        
+        static SimilarityIndex build(Catalog catalog) {
+            SimilarityIndex index = new SimilarityIndex(catalog);
+            for (String category : catalog.categories()) {
+                for (String genre : catalog.genres(category)) {
+                    for (Recommendation rec : catalog.recommendations(category, genre)) {
+                        features(category, genre, rec, index.vectors, rec.id * DIM);
+                        index.keyHashes[rec.id] = (long) rec.itemKey().hashCode() << 32 | rec.id;
+                    }
+                }
+            }
+            Arrays.sort(index.keyHashes);
+            for (int id = 0; id < index.size; id++) {
+                index.insert(id);
+            }
+            return index;
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        Catalog catalog() {
+            return catalog;
+        }
+        
+        // This snapshot's id for an item, which may come from an older catalog whose ids
+        // have since shifted; -1 when the item is no longer in the catalog
+        int idOf(Recommendation rec) {
+            String key = rec.itemKey();
+            if (rec.id >= 0 && rec.id < size && catalog.get(rec.id).itemKey().equals(key)) {
+                return rec.id;
+            }
+            long hash = (long) key.hashCode() << 32;
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keyHashes[mid] < hash) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < size && (keyHashes[i] & 0xFFFFFFFF00000000L) == hash; i++) {
+                int id = (int) keyHashes[i];
+                if (catalog.get(id).itemKey().equals(key)) {
+                    return id;
+                }
+            }
+            return -1;
+        }
+        
+        // Hashed, L2-normalised features; collisions only blur similarity slightly
+        static void features(String category, String genre, Recommendation rec, float[] out, int offset) {
+            addFeature("c:" + category, 1.0f, out, offset);
+            addFeature("g:" + category + '/' + genre, 1.5f, out, offset);
+            List<String> tokens = TitleIndex.tokenize(rec.title);
+            float tokenWeight = tokens.isEmpty() ? 0 : (float) (1.2 / Math.sqrt(tokens.size()));
+            for (String token : tokens) {
+                addFeature("t:" + token, tokenWeight, out, offset);
+            }
+            if (rec.imagePath != null) {
+                int slash = rec.imagePath.lastIndexOf('/');
+                if (slash > 0) {
+                    addFeature("i:" + rec.imagePath.substring(0, slash), 0.5f, out, offset);
+                }
+            }
+            String host = host(rec.redirectUrl);
+            if (host != null) {
+                addFeature("u:" + host, 0.5f, out, offset);
+            }
+            
+            double norm = 0;
+            for (int i = 0; i < DIM; i++) {
+                norm += out[offset + i] * out[offset + i];
+            }
+            if (norm > 0) {
+                float scale = (float) (1 / Math.sqrt(norm));
+                for (int i = 0; i < DIM; i++) {
+                    out[offset + i] *= scale;
+                }
+            }
+        }
+        
+        private static void addFeature(String feature, float weight, float[] out, int offset) {
+            int hash = feature.hashCode() * 0x9E3779B9;
+            out[offset + (hash >>> 27)] += hash < 0 ? -weight : weight;
+        }
+        
+        private static String host(String url) {
+            if (url == null) {
+                return null;
+            }
+            int start = url.indexOf("://");
+            if (start < 0) {
+                return null;
+            }
+            start += 3;
+            int end = url.indexOf('/', start);
+            return end < 0 ? url.substring(start) : url.substring(start, end);
+        }
+        
+        // Up to k nearest items to id, closest first, excluding id itself
+        int[] nearest(int id, int k) {
+            if (entryPoint < 0) {
+                return new int[0];
+            }
+            int offset = id * DIM;
+            int ep = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                ep = greedyClosest(vectors, offset, ep, level);
+            }
+            Heap results = searchLayer(vectors, offset, ep, Math.max(EF_SEARCH, k + 1), 0);
+            int[] ids = results.drainSorted();
+            
+            int[] nearest = new int[Math.min(k, ids.length)];
+            int n = 0;
+            for (int i = 0; i < ids.length && n < nearest.length; i++) {
+                if (ids[i] != id) {
+                    nearest[n++] = ids[i];
+                }
+            }
+            return n == nearest.length ? nearest : Arrays.copyOf(nearest, n);
+        }
+        
+        private void insert(int node) {
+            int level = (int) Math.min(Byte.MAX_VALUE, -Math.log(1 - random.nextDouble()) * levelMultiplier);
+            levels[node] = (byte) level;
+            if (level > 0) {
+                upperLinks[node] = new int[level * (M + 1)];
+            }
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return;
+            }
+            
+            int offset = node * DIM;
+            int ep = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                ep = greedyClosest(vectors, offset, ep, l);
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                Heap candidates = searchLayer(vectors, offset, ep, EF_CONSTRUCTION, l);
+                int count = candidates.size();
+                float[] dists = new float[count];
+                int[] ids = candidates.drainSorted(dists);
+                int[] selected = selectNeighbours(ids, dists, count, M);
+                
+                int[] links = links(node, l);
+                int base = linkBase(node, l);
+                links[base] = selected.length;
+                System.arraycopy(selected, 0, links, base + 1, selected.length);
+                for (int neighbour : selected) {
+                    connect(neighbour, node, l);
+                }
+                ep = ids[0];
+            }
+            if (level > maxLevel) {
+                entryPoint = node;
+                maxLevel = level;
+            }
+        }
+        
+        // Adds node to neighbour's links, re-pruning them if full
+        private void connect(int neighbour, int node, int level) {
+            int maxLinks = level == 0 ? M0 : M;
+            int[] links = links(neighbour, level);
+            int base = linkBase(neighbour, level);
+            int count = links[base];
+            if (count < maxLinks) {
+                links[base + 1 + count] = node;
+                links[base] = count + 1;
+                return;
+            }
+            
+            int[] ids = new int[count + 1];
+            float[] dists = new float[count + 1];
+            for (int i = 0; i <= count; i++) {
+                int other = i < count ? links[base + 1 + i] : node;
+                ids[i] = other;
+                dists[i] = distance(vectors, neighbour * DIM, other);
+            }
+            sortByDistance(ids, dists);
+            int[] selected = selectNeighbours(ids, dists, ids.length, maxLinks);
+            links[base] = selected.length;
+            System.arraycopy(selected, 0, links, base + 1, selected.length);
+        }
+        
+        // HNSW neighbour heuristic: prefer candidates that are closer to the new
+        // node than to any neighbour already chosen, so links spread out in
+        // different directions; top up with the closest skipped ones
+        private int[] selectNeighbours(int[] ids, float[] dists, int count, int m) {
+            int[] selected = new int[Math.min(m, count)];
+            boolean[] taken = new boolean[count];
+            int n = 0;
+            for (int i = 0; i < count && n < selected.length; i++) {
+                boolean diverse = true;
+                for (int j = 0; j < n; j++) {
+                    if (distance(vectors, ids[i] * DIM, selected[j]) < dists[i]) {
+                        diverse = false;
+                        break;
+                    }
+                }
+                if (diverse) {
+                    selected[n++] = ids[i];
+                    taken[i] = true;
+                }
+            }
+            for (int i = 0; i < count && n < selected.length; i++) {
+                if (!taken[i]) {
+                    selected[n++] = ids[i];
+                }
+            }
+            return selected;
+        }
+        
+        private int greedyClosest(float[] query, int offset, int ep, int level) {
+            float best = distance(query, offset, ep);
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                int[] links = links(ep, level);
+                int base = linkBase(ep, level);
+                for (int i = 1; i <= links[base]; i++) {
+                    int candidate = links[base + i];
+                    float d = distance(query, offset, candidate);
+                    if (d < best) {
+                        best = d;
+                        ep = candidate;
+                        improved = true;
+                    }
+                }
+            }
+            return ep;
+        }
+        
+        // Best-first search of one layer; returns up to ef closest as a max-heap
+        private Heap searchLayer(float[] query, int offset, int ep, int ef, int level) {
+            if (++visitStamp == 0) {
+                Arrays.fill(visited, 0);
+                visitStamp = 1;
+            }
+            Heap candidates = new Heap(ef, false);
+            Heap results = new Heap(ef, true);
+            float d = distance(query, offset, ep);
+            candidates.push(d, ep);
+            results.push(d, ep);
+            visited[ep] = visitStamp;
+            
+            while (candidates.size() > 0) {
+                float closest = candidates.topKey();
+                int current = candidates.pop();
+                if (closest > results.topKey() && results.size() >= ef) {
+                    break;
+                }
+                int[] links = links(current, level);
+                int base = linkBase(current, level);
+                for (int i = 1; i <= links[base]; i++) {
+                    int next = links[base + i];
+                    if (visited[next] == visitStamp) {
+                        continue;
+                    }
+                    visited[next] = visitStamp;
+                    float dn = distance(query, offset, next);
+                    if (results.size() < ef || dn < results.topKey()) {
+                        candidates.push(dn, next);
+                        results.push(dn, next);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+            return results;
+        }
+        
+        private int[] links(int node, int level) {
+            return level == 0 ? links0 : upperLinks[node];
+        }
+        
+        private static int linkBase(int node, int level) {
+            return level == 0 ? node * (M0 + 1) : (level - 1) * (M + 1);
+        }
+        
+        // Cosine distance between the query at offset and a stored vector
+        private float distance(float[] query, int offset, int node) {
+            int other = node * DIM;
+            float dot = 0;
+            for (int i = 0; i < DIM; i++) {
+                dot += query[offset + i] * vectors[other + i];
+            }
+            return 1 - dot;
+        }
+        
+        private static void sortByDistance(int[] ids, float[] dists) {
+            // Insertion sort - lists are at most M0 + 1 long
+            for (int i = 1; i < ids.length; i++) {
+                int id = ids[i];
+                float d = dists[i];
+                int j = i - 1;
+                while (j >= 0 && dists[j] > d) {
+                    ids[j + 1] = ids[j];
+                    dists[j + 1] = dists[j];
+                    j--;
+                }
+                ids[j + 1] = id;
+                dists[j + 1] = d;
+            }
+        }
+        
+        // Binary heap of (distance, id) pairs; a max-heap when max is true
+        private static final class Heap {
+            private float[] keys;
+            private int[] ids;
+            private int size;
+            private final boolean max;
+            
+            Heap(int capacity, boolean max) {
+                keys = new float[capacity + 1];
+                ids = new int[capacity + 1];
+                this.max = max;
+            }
+            
+            int size() {
+                return size;
+            }
+            
+            float topKey() {
+                return keys[0];
+            }
+            
+            void push(float key, int id) {
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (!before(key, keys[parent])) {
+                        break;
+                    }
+                    keys[i] = keys[parent];
+                    ids[i] = ids[parent];
+                    i = parent;
+                }
+                keys[i] = key;
+                ids[i] = id;
+            }
+            
+            int pop() {
+                int top = ids[0];
+                size--;
+                float key = keys[size];
+                int id = ids[size];
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && before(keys[child + 1], keys[child])) {
+                        child++;
+                    }
+                    if (!before(keys[child], key)) {
+                        break;
+                    }
+                    keys[i] = keys[child];
+                    ids[i] = ids[child];
+                    i = child;
+                }
+                keys[i] = key;
+                ids[i] = id;
+                return top;
+            }
+            
+            // Empties a max-heap into ids ordered closest first
+            int[] drainSorted() {
+                return drainSorted(new float[size]);
+            }
+            
+            int[] drainSorted(float[] distsOut) {
+                int[] sorted = new int[size];
+                for (int i = sorted.length - 1; i >= 0; i--) {
+                    distsOut[i] = keys[0];
+                    sorted[i] = pop();
+                }
+                return sorted;
+            }
+            
+            private boolean before(float a, float b) {
+                return max ? a > b : a < b;
+            }
+        }
+    }
+    
+    // In-memory catalog stored as primitive columns instead of one object per item.
+    // Category/genre names are dictionary-encoded into genre slots that each own a
+    // contiguous id range; titles are packed into a shared UTF-8 blob; image paths
+    // and URLs are split into a shared prefix (dictionary id) plus a packed suffix.
+    // Recommendation objects are only created as views when an item is read.
+    static final class ColumnarCatalog implements Catalog {
+        private final Map<String, Map<String, Integer>> slots;
+        private final int[] slotStart;           // first id of each genre slot, plus a sentinel
+        private final String[] prefixes;         // shared path/URL prefix dictionary
+        private final StringColumn titles;
+        private final int[] imagePrefix;
+        private final StringColumn imageSuffixes;
+        private final int[] urlPrefix;
+        private final StringColumn urlSuffixes;
+        
+        private ColumnarCatalog(Map<String, Map<String, Integer>> slots, int[] slotStart, String[] prefixes,
+                                StringColumn titles, int[] imagePrefix, StringColumn imageSuffixes,
+                                int[] urlPrefix, StringColumn urlSuffixes) {
+            this.slots = slots;
+            this.slotStart = slotStart;
+            this.prefixes = prefixes;
+            this.titles = titles;
+            this.imagePrefix = imagePrefix;
+            this.imageSuffixes = imageSuffixes;
+            this.urlPrefix = urlPrefix;
+            this.urlSuffixes = urlSuffixes;
+        }
+        
+        // Converts the built-in seed maps (see seedGenres/seedData)
+        static ColumnarCatalog fromSeed(Map<String, Set<String>> genres,
+                                        Map<String, Map<String, List<Recommendation>>> data) {
+            Builder builder = new Builder();
+            for (Map.Entry<String, Set<String>> category : genres.entrySet()) {
+                Map<String, List<Recommendation>> categoryData = data.getOrDefault(category.getKey(), Collections.emptyMap());
+                for (String genre : category.getValue()) {
+                    builder.addGenre(category.getKey(), genre);
+                    for (Recommendation rec : categoryData.getOrDefault(genre, Collections.emptyList())) {
+                        builder.add(category.getKey(), genre, rec.title, rec.imagePath, rec.redirectUrl);
+                    }
+                }
+            }
+            return builder.build();
+        }
+        
+        @Override
+        public Set<String> categories() {
+            return Collections.unmodifiableSet(slots.keySet());
+        }
+        
+        @Override
+        public Set<String> genres(String category) {
+            Map<String, Integer> genreSlots = slots.get(category);
+            return genreSlots == null ? Collections.emptySet() : Collections.unmodifiableSet(genreSlots.keySet());
+        }
+        
+        @Override
+        public int count(String category, String genre) {
+            int slot = slot(category, genre);
+            return slot < 0 ? 0 : slotStart[slot + 1] - slotStart[slot];
+        }
+        
+        @Override
+        public List<Recommendation> recommendations(String category, String genre) {
+            int slot = slot(category, genre);
+            if (slot < 0) {
+                return Collections.emptyList();
+            }
+            int first = slotStart[slot];
+            int count = slotStart[slot + 1] - first;
+            return new AbstractList<Recommendation>() {
+                @Override
+                public Recommendation get(int index) {
+                    if (index < 0 || index >= count) {
+                        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+                    }
+                    return ColumnarCatalog.this.get(first + index);
+                }
+                
+                @Override
+                public int size() {
+                    return count;
+                }
+            };
+        }
+        
+        @Override
+        public int size() {
+            return titles.size();
+        }
+        
+        @Override
+        public Recommendation get(int id) {
+            if (id < 0 || id >= size()) {
+                throw new IndexOutOfBoundsException("Item id: " + id);
+            }
+            return new Recommendation(id, titles.get(id),
+                prefixes[imagePrefix[id]] + imageSuffixes.get(id),
+                prefixes[urlPrefix[id]] + urlSuffixes.get(id));
+        }
+        
+        private int slot(String category, String genre) {
+            Map<String, Integer> genreSlots = slots.get(category);
+            Integer slot = genreSlots == null ? null : genreSlots.get(genre);
+            return slot == null ? -1 : slot;
+        }
+        
+        // Packed UTF-8 strings addressed by index
+        static final class StringColumn {
+            private byte[] bytes;
+            private int[] offsets;
+            private int size;
+            
+            StringColumn(int capacity) {
+                bytes = new byte[Math.max(16, capacity * 16)];
+                offsets = new int[Math.max(1, capacity) + 1];
+            }
+            
+            void add(String value) {
+                byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+                add(encoded, 0, encoded.length);
+            }
+            
+            void add(byte[] source, int from, int length) {
+                if (size + 1 >= offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                int end = offsets[size];
+                if (end + length > bytes.length) {
+                    bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, end + length));
+                }
+                System.arraycopy(source, from, bytes, end, length);
+                offsets[++size] = end + length;
+            }
+            
+            void addFrom(StringColumn other, int index) {
+                add(other.bytes, other.offsets[index], other.offsets[index + 1] - other.offsets[index]);
+            }
+            
+            String get(int index) {
+                return new String(bytes, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+            }
+            
+            int size() {
+                return size;
+            }
+            
+            void trim() {
+                bytes = Arrays.copyOf(bytes, offsets[size]);
+                offsets = Arrays.copyOf(offsets, size + 1);
+            }
+        }
+        
+        // Accumulates items in arrival order; build() regroups them by genre slot
+        static final class Builder {
+            private final Map<String, Map<String, Integer>> slots = new LinkedHashMap<>();
+            private final Map<String, Integer> prefixIds = new HashMap<>();
+            private final List<String> prefixes = new ArrayList<>();
+            private final StringColumn titles = new StringColumn(1024);
+            private final StringColumn imageSuffixes = new StringColumn(1024);
+            private final StringColumn urlSuffixes = new StringColumn(1024);
+            private int[] itemSlot = new int[1024];
+            private int[] imagePrefix = new int[1024];
+            private int[] urlPrefix = new int[1024];
+            private int slotCount;
+            private int size;
+            
+            // Registers a genre even if it ends up with no items
+            int addGenre(String category, String genre) {
+                return slots.computeIfAbsent(category, k -> new LinkedHashMap<>())
+                    .computeIfAbsent(genre, k -> slotCount++);
+            }
+            
+            void add(String category, String genre, String title, String imagePath, String redirectUrl) {
+                int slot = addGenre(category, genre);
+                if (size == itemSlot.length) {
+                    itemSlot = Arrays.copyOf(itemSlot, size * 2);
+                    imagePrefix = Arrays.copyOf(imagePrefix, size * 2);
+                    urlPrefix = Arrays.copyOf(urlPrefix, size * 2);
+                }
+                itemSlot[size] = slot;
+                imagePrefix[size] = addSplit(imagePath == null ? "" : imagePath, imageSuffixes);
+                urlPrefix[size] = addSplit(redirectUrl == null ? "" : redirectUrl, urlSuffixes);
+                titles.add(title == null ? "" : title);
+                size++;
+            }
+            
+            void addAll(Builder other) {
+                // Map the other builder's slots onto ours, keeping its empty genres too
+                int[] slotMap = new int[other.slotCount];
+                for (Map.Entry<String, Map<String, Integer>> category : other.slots.entrySet()) {
+                    for (Map.Entry<String, Integer> genre : category.getValue().entrySet()) {
+                        slotMap[genre.getValue()] = addGenre(category.getKey(), genre.getKey());
+                    }
+                }
+                for (int i = 0; i < other.size; i++) {
+                    if (size == itemSlot.length) {
+                        itemSlot = Arrays.copyOf(itemSlot, size * 2);
+                        imagePrefix = Arrays.copyOf(imagePrefix, size * 2);
+                        urlPrefix = Arrays.copyOf(urlPrefix, size * 2);
+                    }
+                    itemSlot[size] = slotMap[other.itemSlot[i]];
+                    imagePrefix[size] = prefixId(other.prefixes.get(other.imagePrefix[i]));
+                    urlPrefix[size] = prefixId(other.prefixes.get(other.urlPrefix[i]));
+                    titles.addFrom(other.titles, i);
+                    imageSuffixes.addFrom(other.imageSuffixes, i);
+                    urlSuffixes.addFrom(other.urlSuffixes, i);
+                    size++;
+                }
+            }
+            
+            int size() {
+                return size;
+            }
+            
+            Set<String> genreKeys() {
+                Set<String> keys = new HashSet<>();
+                for (Map.Entry<String, Map<String, Integer>> category : slots.entrySet()) {
+                    for (String genre : category.getValue().keySet()) {
+                        keys.add(Catalog.genreKey(category.getKey(), genre));
+                    }
+                }
+                return keys;
+            }
+            
+            ColumnarCatalog build() {
+                // Final slot order follows category order, then genre order within it
+                int[] slotOrder = new int[slotCount];
+                Map<String, Map<String, Integer>> orderedSlots = new LinkedHashMap<>();
+                int next = 0;
+                for (Map.Entry<String, Map<String, Integer>> category : slots.entrySet()) {
+                    Map<String, Integer> genreSlots = new LinkedHashMap<>();
+                    for (Map.Entry<String, Integer> genre : category.getValue().entrySet()) {
+                        slotOrder[genre.getValue()] = next;
+                        genreSlots.put(genre.getKey(), next++);
+                    }
+                    orderedSlots.put(category.getKey(), genreSlots);
+                }
+                
+                // Counting sort of item positions by slot, stable within a genre
+                int[] slotStart = new int[slotCount + 1];
+                for (int i = 0; i < size; i++) {
+                    slotStart[slotOrder[itemSlot[i]] + 1]++;
+                }
+                for (int s = 0; s < slotCount; s++) {
+                    slotStart[s + 1] += slotStart[s];
+                }
+                int[] cursor = Arrays.copyOf(slotStart, slotCount);
+                int[] sourceOf = new int[size];
+                for (int i = 0; i < size; i++) {
+                    sourceOf[cursor[slotOrder[itemSlot[i]]]++] = i;
+                }
+                
+                StringColumn sortedTitles = new StringColumn(size);
+                StringColumn sortedImages = new StringColumn(size);
+                StringColumn sortedUrls = new StringColumn(size);
+                int[] sortedImagePrefix = new int[size];
+                int[] sortedUrlPrefix = new int[size];
+                for (int id = 0; id < size; id++) {
+                    int source = sourceOf[id];
+                    sortedTitles.addFrom(titles, source);
+                    sortedImages.addFrom(imageSuffixes, source);
+                    sortedUrls.addFrom(urlSuffixes, source);
+                    sortedImagePrefix[id] = imagePrefix[source];
+                    sortedUrlPrefix[id] = urlPrefix[source];
+                }
+                sortedTitles.trim();
+                sortedImages.trim();
+                sortedUrls.trim();
+                
+                return new ColumnarCatalog(orderedSlots, slotStart, prefixes.toArray(new String[0]),
+                    sortedTitles, sortedImagePrefix, sortedImages, sortedUrlPrefix, sortedUrls);
+            }
+            
+            // Everything up to the last '/' (ignoring a trailing one) is shared,
+            // e.g. "images/movies/action/" or "https://www.imdb.com/title/"
+            private int addSplit(String value, StringColumn suffixes) {
+                int cut = value.length() < 2 ? 0 : value.lastIndexOf('/', value.length() - 2) + 1;
+                suffixes.add(value.substring(cut));
+                return prefixId(value.substring(0, cut));
+            }
+            
+            private int prefixId(String prefix) {
+                Integer id = prefixIds.get(prefix);
+                if (id == null) {
+                    id = prefixes.size();
+                    prefixes.add(prefix);
+                    prefixIds.put(prefix, id);
+                }
+                return id;
+            }
+            
+        }
+    }
+    
+    // Streaming importer for catalog feeds. Each feed is read line by line, so a
+    // file is never held in memory; feeds are parsed in parallel (one task per
+    // file, typically one file per category) straight into columnar builders,
+    // which are merged in feed order.
+    //
+    // Supported formats, chosen by extension:
+    //   .jsonl - one flat JSON object per line
+    //   .csv   - header row followed by records (RFC 4180 quoting)
+    // Recognised fields: category, genre, title, imagePath (or image), redirectUrl (or url)
+    static final class CatalogImporter {
+        private static final int PROGRESS_INTERVAL = 10_000;
+        
+        interface Progress {
+            void update(long bytesRead, long totalBytes, long records);
+        }
+        
+        static final class Result {
+            final ColumnarCatalog catalog;
+            final int rejected;
+            
+            Result(ColumnarCatalog catalog, int rejected) {
+                this.catalog = catalog;
+                this.rejected = rejected;
+            }
+        }
+        
+        // Parse output of a single feed
+        static final class Part {
+            final ColumnarCatalog.Builder builder = new ColumnarCatalog.Builder();
+            int rejected;
+        }
+        
+        private final Progress progress;
+        private final int threads;
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong recordsRead = new AtomicLong();
+        private long totalBytes;
+        
+        CatalogImporter(Progress progress) {
+            this(progress, Runtime.getRuntime().availableProcessors());
+        }
+        
+        CatalogImporter(Progress progress, int threads) {
+            this.progress = progress;
+            this.threads = Math.max(1, threads);
+        }
+        
+        static List<Path> findFeeds(Path directory) {
+            if (!Files.isDirectory(directory)) {
+                return Collections.emptyList();
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                return files.filter(CatalogImporter::isFeed).sorted().collect(Collectors.toList());
+            } catch (IOException e) {
+                System.out.println("Error listing catalog feeds: " + e.getMessage());
+                return Collections.emptyList();
+            }
+        }
+        
+        static boolean isFeed(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return Files.isRegularFile(file) && (name.endsWith(".jsonl") || name.endsWith(".csv"));
+        }
+        
+        static boolean isNewerThan(List<Path> feeds, Path target) throws IOException {
+            long built = Files.getLastModifiedTime(target).toMillis();
+            for (Path feed : feeds) {
+                if (Files.getLastModifiedTime(feed).toMillis() > built) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        Result importFeeds(List<Path> feeds) throws IOException {
+            totalBytes = 0;
+            for (Path feed : feeds) {
+                totalBytes += Files.size(feed);
+            }
+            bytesRead.set(0);
+            recordsRead.set(0);
+            
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, feeds.size())), r -> {
+                Thread thread = new Thread(r, "catalog-import");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<Part>> parts = new ArrayList<>();
+                for (Path feed : feeds) {
+                    parts.add(pool.submit(() -> importFeed(feed)));
+                }
+                
+                ColumnarCatalog.Builder merged = new ColumnarCatalog.Builder();
+                int rejected = 0;
+                for (Future<Part> future : parts) {
+                    Part part = future.get();
+                    merged.addAll(part.builder);
+                    rejected += part.rejected;
+                }
+                progress.update(totalBytes, totalBytes, merged.size());
+                return new Result(merged.build(), rejected);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Catalog import interrupted", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        
+        Part importFeed(Path feed) throws IOException {
+            Part result = new Part();
+            boolean csv = feed.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new CountingInputStream(Files.newInputStream(feed)), StandardCharsets.UTF_8), 64 * 1024)) {
+                if (csv) {
+                    readCsv(reader, result);
+                } else {
+                    readJsonLines(reader, result);
+                }
+            }
+            return result;
+        }
+        
+        private void readJsonLines(BufferedReader reader, Part result) throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                add(result, parseJsonObject(line));
+            }
+        }
+        
+        private void readCsv(BufferedReader reader, Part result) throws IOException {
+            List<String> header = readCsvRecord(reader);
+            if (header == null) {
+                return;
+            }
+            List<String> fields;
+            while ((fields = readCsvRecord(reader)) != null) {
+                if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                    continue;
+                }
+                Map<String, String> record = new HashMap<>();
+                for (int i = 0; i < header.size() && i < fields.size(); i++) {
+                    record.put(header.get(i).trim(), fields.get(i));
+                }
+                add(result, record);
+            }
+        }
+        
+        private void add(Part result, Map<String, String> record) {
+            String category = record == null ? null : record.get("category");
+            String genre = record == null ? null : record.get("genre");
+            String title = record == null ? null : record.get("title");
+            if (isBlank(category) || isBlank(genre) || isBlank(title)) {
+                result.rejected++;
+                return;
+            }
+            String imagePath = record.getOrDefault("imagePath", record.getOrDefault("image", ""));
+            String redirectUrl = record.getOrDefault("redirectUrl", record.getOrDefault("url", ""));
+            
+            result.builder.add(category, genre, title, imagePath, redirectUrl);
+            
+            long records = recordsRead.incrementAndGet();
+            if (records % PROGRESS_INTERVAL == 0) {
+                progress.update(bytesRead.get(), totalBytes, records);
+            }
+        }
+        
+        private static boolean isBlank(String value) {
+            return value == null || value.trim().isEmpty();
+        }
+        
+        // Minimal parser for one flat JSON object; nested values are skipped.
+        // Returns null for lines that are not a well-formed object.
+        static Map<String, String> parseJsonObject(String line) {
+            Map<String, String> record = new HashMap<>();
+            int[] pos = {skipWhitespace(line, 0)};
+            if (pos[0] >= line.length() || line.charAt(pos[0]) != '{') {
+                return null;
+            }
+            pos[0] = skipWhitespace(line, pos[0] + 1);
+            if (pos[0] < line.length() && line.charAt(pos[0]) == '}') {
+                return record;
+            }
+            while (pos[0] < line.length()) {
+                String key = parseJsonString(line, pos);
+                if (key == null) {
+                    return null;
+                }
+                pos[0] = skipWhitespace(line, pos[0]);
+                if (pos[0] >= line.length() || line.charAt(pos[0]) != ':') {
+                    return null;
+                }
+                pos[0] = skipWhitespace(line, pos[0] + 1);
+                if (pos[0] < line.length() && line.charAt(pos[0]) == '"') {
+                    String value = parseJsonString(line, pos);
+                    if (value == null) {
+                        return null;
+                    }
+                    record.put(key, value);
+                } else if (!skipJsonValue(line, pos)) {
+                    return null;
+                }
+                pos[0] = skipWhitespace(line, pos[0]);
+                if (pos[0] >= line.length()) {
+                    return null;
+                }
+                char c = line.charAt(pos[0]++);
+                if (c == '}') {
+                    return record;
+                }
+                if (c != ',') {
+                    return null;
+                }
+                pos[0] = skipWhitespace(line, pos[0]);
+            }
+            return null;
+        }
+        
+        private static String parseJsonString(String line, int[] pos) {
+            if (pos[0] >= line.length() || line.charAt(pos[0]) != '"') {
+                return null;
+            }
+            StringBuilder value = new StringBuilder();
+            int i = pos[0] + 1;
+            while (i < line.length()) {
+                char c = line.charAt(i++);
+                if (c == '"') {
+                    pos[0] = i;
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (i >= line.length()) {
+                    return null;
+                }
+                char escape = line.charAt(i++);
+                switch (escape) {
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'n': value.append('\n'); break;
+                    case 'r': value.append('\r'); break;
+                    case 't': value.append('\t'); break;
+                    case 'u':
+                        if (i + 4 > line.length()) {
+                            return null;
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(line.substring(i, i + 4), 16));
+                        } catch (NumberFormatException e) {
+                            return null;
+                        }
+                        i += 4;
+                        break;
+                    default:
+                        value.append(escape);
+                        break;
+                }
+            }
+            return null;
+        }
+        
+        // Skips a number, literal, array or object value
+        private static boolean skipJsonValue(String line, int[] pos) {
+            int depth = 0;
+            boolean inString = false;
+            int i = pos[0];
+            while (i < line.length()) {
+                char c = line.charAt(i);
+                if (inString) {
+                    if (c == '\\') {
+                        i++;
+                    } else if (c == '"') {
+                        inString = false;
+                    }
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (depth == 0) {
+                        break;
+                    }
+                    depth--;
+                } else if (c == ',' && depth == 0) {
+                    break;
+                }
+                i++;
+            }
+            boolean consumed = i > pos[0];
+            pos[0] = i;
+            return consumed && depth == 0;
+        }
+        
+        private static int skipWhitespace(String line, int pos) {
+            while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+            return pos;
+        }
+        
+        // Reads one CSV record; quoted fields may span lines. Returns null at end of input.
+        static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i >= line.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // Newline inside a quoted field
+                    line = reader.readLine();
+                    if (line == null) {
+                        break;
+                    }
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c == '"') {
+                        if (i < line.length() && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+        
+        // Feeds the shared progress counter as raw bytes are consumed
+        private final class CountingInputStream extends FilterInputStream {
+            CountingInputStream(InputStream in) {
+                super(in);
+            }
+            
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesRead.incrementAndGet();
+                }
+                return b;
+            }
+            
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    bytesRead.addAndGet(n);
+                }
+                return n;
+            }
+        }
+    }
+    
+    // Hot reload for the feed directory. A daemon thread waits on a WatchService,
+    // coalesces bursts of events until the directory has been quiet for a moment,
+    // and re-parses only the feeds that changed (the first reload parses every
+    // feed once, since catalog.bin does not record which feed an item came from).
+    // The merged result is an immutable snapshot; genres are compared only where
+    // a changed feed contributed, and the listener receives just those that differ.
+    static final class CatalogReloader implements Runnable {
+        private static final long QUIET_PERIOD_MILLIS = 300;
+        
+        interface Listener {
+            void catalogChanged(Catalog next, Set<String> changedGenres);
+        }
+        
+        private final Path feedDir;
+        private final Path catalogFile;
+        private final Listener listener;
+        private final Map<Path, CatalogImporter.Part> parts = new TreeMap<>();
+        private final CatalogImporter importer = new CatalogImporter((bytesRead, totalBytes, records) -> { }, 1);
+        private Catalog current;
+        private volatile boolean running;
+        private Thread thread;
+        
+        CatalogReloader(Path feedDir, Path catalogFile, Catalog initial, Listener listener) {
+            this.feedDir = feedDir;
+            this.catalogFile = catalogFile;
+            this.current = initial;
+            this.listener = listener;
+        }
+        
+        void start() {
+            running = true;
+            thread = new Thread(this, "catalog-reload");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        
+        void stop() {
+            running = false;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+        
+        @Override
+        public void run() {
+            try (WatchService watcher = feedDir.getFileSystem().newWatchService()) {
+                feedDir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                while (running) {
+                    Set<Path> changed = new HashSet<>();
+                    WatchKey key = watcher.take();
+                    // Editors write in several steps; wait until the directory goes quiet
+                    while (key != null) {
+                        for (WatchEvent<?> event : key.pollEvents()) {
+                            if (event.context() instanceof Path) {
+                                changed.add(feedDir.resolve((Path) event.context()));
+                            }
+                        }
+                        key.reset();
+                        key = watcher.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+                    changed.removeIf(path -> !isFeedName(path));
+                    if (!changed.isEmpty()) {
+                        reload(changed);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                System.out.println("Catalog watcher stopped: " + e.getMessage());
+            }
+        }
+        
+        private static boolean isFeedName(Path path) {
+            String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".jsonl") || name.endsWith(".csv");
+        }
+        
+        void reload(Set<Path> changed) {
+            try {
+                List<Path> feeds = CatalogImporter.findFeeds(feedDir);
+                if (feeds.isEmpty()) {
+                    // Never publish an empty catalog because the feeds were moved away
+                    return;
+                }
+                boolean firstReload = parts.isEmpty();
+                Set<String> candidates = new HashSet<>();
+                
+                // Feeds that were deleted
+                for (Iterator<Map.Entry<Path, CatalogImporter.Part>> it = parts.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<Path, CatalogImporter.Part> entry = it.next();
+                    if (!feeds.contains(entry.getKey())) {
+                        candidates.addAll(entry.getValue().builder.genreKeys());
+                        it.remove();
+                    }
+                }
+                // New or modified feeds
+                for (Path feed : feeds) {
+                    CatalogImporter.Part previous = parts.get(feed);
+                    if (previous != null && !changed.contains(feed)) {
+                        continue;
+                    }
+                    CatalogImporter.Part next = importer.importFeed(feed);
+                    if (previous != null) {
+                        candidates.addAll(previous.builder.genreKeys());
+                    }
+                    candidates.addAll(next.builder.genreKeys());
+                    parts.put(feed, next);
+                }
+                
+                ColumnarCatalog.Builder merged = new ColumnarCatalog.Builder();
+                for (CatalogImporter.Part part : parts.values()) {
+                    merged.addAll(part.builder);
+                }
+                ColumnarCatalog next = merged.build();
+                
+                Set<String> changedGenres = changedGenres(current, next, firstReload ? null : candidates);
+                if (changedGenres.isEmpty()) {
+                    return;
+                }
+                current = next;
+                listener.catalogChanged(next, Collections.unmodifiableSet(changedGenres));
+                
+                // Keep catalog.bin current so the next launch maps the new data
+                MappedCatalog.write(catalogFile, next);
+            } catch (IOException e) {
+                System.out.println("Error reloading catalog: " + e.getMessage());
+            }
+        }
+        
+        // Genres whose items differ between two versions; candidates == null compares all
+        static Set<String> changedGenres(Catalog previous, Catalog next, Set<String> candidates) {
+            Set<String> keys = candidates;
+            if (keys == null) {
+                keys = new HashSet<>();
+                for (Catalog version : Arrays.asList(previous, next)) {
+                    for (String category : version.categories()) {
+                        for (String genre : version.genres(category)) {
+                            keys.add(Catalog.genreKey(category, genre));
+                        }
+                    }
+                }
+            }
+            
+            Set<String> changed = new HashSet<>();
+            for (String key : keys) {
+                String category = Catalog.categoryOf(key);
+                String genre = Catalog.genreOf(key);
+                boolean before = previous.genres(category).contains(genre);
+                boolean after = next.genres(category).contains(genre);
+                if (before != after || !sameItems(previous.recommendations(category, genre), next.recommendations(category, genre))) {
+                    changed.add(key);
+                }
+            }
+            return changed;
+        }
+        
+        private static boolean sameItems(List<Recommendation> a, List<Recommendation> b) {
+            if (a.size() != b.size()) {
+                return false;
+            }
+            for (int i = 0; i < a.size(); i++) {
+                Recommendation x = a.get(i);
+                Recommendation y = b.get(i);
+                if (!Objects.equals(x.title, y.title) || !Objects.equals(x.imagePath, y.imagePath)
+                        || !Objects.equals(x.redirectUrl, y.redirectUrl)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
+    // Item-to-item collaborative filtering over card clicks. Items opened in the
+    // same session within a short window count as co-opened; each item keeps a
+    // sparse int-keyed row of co-open counts and a small top-K neighbour list that
+    // is adjusted on every increment, so lookups never scan a whole row.
+    // Items are keyed by itemKey() rather than catalog id, because ids shift
+    // when the catalog is reloaded. Used from the FX thread only.
+    static final class CoOpenModel {
+        private static final int SESSION_WINDOW = 20;
+        private static final int TOP_K = 12;
+        
+        private final Map<String, Integer> itemIds = new HashMap<>();
+        private final List<Recommendation> items = new ArrayList<>();
+        private final List<IntIntMap> rows = new ArrayList<>();
+        private final List<int[]> neighbours = new ArrayList<>();
+        private final IntList neighbourCounts = new IntList();
+        private final IntList session = new IntList(SESSION_WINDOW);
+        
+        void recordOpen(Recommendation rec) {
+            int item = intern(rec);
+            // Opening the same item twice in a session is not a new co-occurrence
+            for (int i = 0; i < session.size(); i++) {
+                if (session.get(i) == item) {
+                    return;
+                }
+            }
+            for (int i = 0; i < session.size(); i++) {
+                int other = session.get(i);
+                increment(item, other);
+                increment(other, item);
+            }
+            if (session.size() == SESSION_WINDOW) {
+                for (int i = 1; i < SESSION_WINDOW; i++) {
+                    session.set(i - 1, session.get(i));
+                }
+                session.removeLast();
+            }
+            session.add(item);
+        }
+        
+        // Starts a new session, e.g. after the log is replayed from a previous run
+        void endSession() {
+            session.clear();
+        }
+        
+        List<Recommendation> related(Recommendation rec, int limit, List<Recommendation> exclude) {
+            return related(Collections.singletonList(rec), limit, exclude);
+        }
+        
+        // Neighbours of all seed items, summed and ranked, excluding the seeds
+        List<Recommendation> related(List<Recommendation> seeds, int limit) {
+            return related(seeds, limit, seeds);
+        }
+        
+        private List<Recommendation> related(List<Recommendation> seeds, int limit, List<Recommendation> exclude) {
+            IntIntMap scores = new IntIntMap();
+            for (Recommendation seed : seeds) {
+                Integer item = itemIds.get(seed.itemKey());
+                if (item == null) {
+                    continue;
+                }
+                int[] top = neighbours.get(item);
+                IntIntMap row = rows.get(item);
+                for (int i = 0; i < neighbourCounts.get(item); i++) {
+                    scores.add(top[i], row.get(top[i]));
+                }
+            }
+            for (Recommendation excluded : exclude) {
+                Integer item = itemIds.get(excluded.itemKey());
+                if (item != null) {
+                    scores.remove(item);
+                }
+            }
+            
+            List<Integer> sorted = new ArrayList<>();
+            for (int item : scores.keys()) {
+                sorted.add(item);
+            }
+            // Highest co-open count first, earliest-seen item on ties
+            sorted.sort((a, b) -> {
+                int byScore = Integer.compare(scores.get(b), scores.get(a));
+                return byScore != 0 ? byScore : Integer.compare(a, b);
+            });
+            
+            List<Recommendation> result = new ArrayList<>();
+            for (int i = 0; i < Math.min(limit, sorted.size()); i++) {
+                result.add(items.get(sorted.get(i)));
+            }
+            return result;
+        }
+        
+        private void increment(int item, int other) {
+            int count = rows.get(item).add(other, 1);
+            
+            // Counts only grow, so the neighbour either moves up in the top-K list,
+            // enters it by displacing the weakest entry, or stays outside
+            int[] top = neighbours.get(item);
+            int size = neighbourCounts.get(item);
+            IntIntMap row = rows.get(item);
+            int pos = -1;
+            for (int i = 0; i < size; i++) {
+                if (top[i] == other) {
+                    pos = i;
+                    break;
+                }
+            }
+            if (pos < 0) {
+                if (size < TOP_K) {
+                    pos = size++;
+                    neighbourCounts.set(item, size);
+                } else if (count > row.get(top[size - 1])) {
+                    pos = size - 1;
+                } else {
+                    return;
+                }
+                top[pos] = other;
+            }
+            while (pos > 0 && row.get(top[pos - 1]) < count) {
+                top[pos] = top[pos - 1];
+                top[pos - 1] = other;
+                pos--;
+            }
+        }
+        
+        private int intern(Recommendation rec) {
+            String key = rec.itemKey();
+            Integer id = itemIds.get(key);
+            if (id == null) {
+                id = items.size();
+                itemIds.put(key, id);
+                items.add(new Recommendation(rec.title, rec.imagePath, rec.redirectUrl));
+                rows.add(new IntIntMap());
+                neighbours.add(new int[TOP_K]);
+                neighbourCounts.add(0);
+            }
+            return id;
+        }
+        
+        int itemCount() {
+            return items.size();
+        }
+    }
+    
+    // Append-only binary log of user interactions. record() claims a slot in a
+    // fixed-size ring with a CAS and publishes the event there, so callers never
+    // take a lock or touch the disk; when the ring is full the event is dropped
+    // and counted rather than blocking the UI. A single writer thread drains the
+    // ring in batches, writes each batch with one call and fsyncs once per batch
+    // (group commit), and rolls over to a new segment file past SEGMENT_BYTES.
+    //
+    // Record layout: int bodyLength, int crc32(body), then the body: byte type,
+    // long epochMillis, byte fieldCount, and per field an int length + UTF-8.
+    // A torn or corrupt record ends replay of its segment.
+    static final class EventLog implements Runnable {
+        static final byte SESSION_START = 1;
+        static final byte NAVIGATE = 2;
+        static final byte GENRE_OPEN = 3;
+        static final byte ITEM_OPEN = 4;
+        
+        private static final int RING_CAPACITY = 1 << 14;
+        private static final int RING_MASK = RING_CAPACITY - 1;
+        private static final int MAX_BATCH = 4096;
+        private static final long SEGMENT_BYTES = 8L << 20;
+        private static final int MAX_SEGMENTS = 32;
+        private static final long IDLE_PARK_NANOS = 2_000_000L;
+        private static final String SEGMENT_PREFIX = "events-";
+        private static final String SEGMENT_SUFFIX = ".log";
+        
+        static final class Event {
+            final byte type;
+            final long time;
+            final String[] fields;
+            
+            Event(byte type, long time, String[] fields) {
+                this.type = type;
+                this.time = time;
+                this.fields = fields;
+            }
+        }
+        
+        private final Path dir;
+        private final AtomicReferenceArray<Event> slots = new AtomicReferenceArray<>(RING_CAPACITY);
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head;
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean running = true;
+        private final Thread writer;
+        private final int firstSegment;
+        private int segment;
+        private FileChannel channel;
+        private long segmentBytes;
+        private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        private final CRC32 crc = new CRC32();
+        
+        private EventLog(Path dir, int firstSegment) throws IOException {
+            this.dir = dir;
+            this.firstSegment = firstSegment;
+            this.segment = firstSegment;
+            channel = openSegment(segment);
+            writer = new Thread(this, "event-log");
+            writer.setDaemon(true);
+        }
+        
+        // Starts a fresh segment after any left by earlier runs. Every launch adds a
+        // segment, so the oldest are pruned here as well as on rollover.
+        static EventLog open(Path dir) throws IOException {
+            Files.createDirectories(dir);
+            List<Path> segments = segments(dir);
+            int next = segments.isEmpty() ? 1 : segmentNumber(segments.get(segments.size() - 1)) + 1;
+            EventLog log = new EventLog(dir, next);
+            prune(dir);
+            log.writer.start();
+            return log;
+        }
+        
+        // Returns false if the ring is full and the event was dropped
+        boolean record(byte type, String... fields) {
+            Event event = new Event(type, System.currentTimeMillis(), fields);
+            long seq;
+            do {
+                seq = tail.get();
+                if (seq - head >= RING_CAPACITY) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+            } while (!tail.compareAndSet(seq, seq + 1));
+            slots.set((int) (seq & RING_MASK), event);
+            return true;
+        }
+        
+        long droppedCount() {
+            return dropped.get();
+        }
+        
+        // Flushes what is queued and stops the writer
+        void close() {
+            running = false;
+            LockSupport.unpark(writer);
+            try {
+                writer.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    int written = drainBatch();
+                    if (written == 0) {
+                        if (!running && head == tail.get()) {
+                            break;
+                        }
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("Event log writer stopped: " + e.getMessage());
+            } finally {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    System.out.println("Error closing event log: " + e.getMessage());
+                }
+            }
+        }
+        
+        private int drainBatch() throws IOException {
+            buffer.clear();
+            long next = head;
+            int count = 0;
+            while (count < MAX_BATCH) {
+                int slot = (int) (next & RING_MASK);
+                Event event = slots.get(slot);
+                if (event == null) {
+                    // Empty, or claimed but not yet published
+                    break;
+                }
+                slots.set(slot, null);
+                encode(event);
+                next++;
+                count++;
+            }
+            if (count == 0) {
+                return 0;
+            }
+            head = next;
+            
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                segmentBytes += channel.write(buffer);
+            }
+            channel.force(false);
+            if (segmentBytes >= SEGMENT_BYTES) {
+                rollOver();
+            }
+            return count;
+        }
+        
+        private void encode(Event event) {
+            byte[][] fields = new byte[event.fields.length][];
+            int bodyLength = 1 + 8 + 1;
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = event.fields[i] == null ? new byte[0] : event.fields[i].getBytes(StandardCharsets.UTF_8);
+                bodyLength += 4 + fields[i].length;
+            }
+            ensureCapacity(8 + bodyLength);
+            
+            int start = buffer.position();
+            buffer.position(start + 8);
+            buffer.put(event.type);
+            buffer.putLong(event.time);
+            buffer.put((byte) fields.length);
+            for (byte[] field : fields) {
+                buffer.putInt(field.length);
+                buffer.put(field);
+            }
+            crc.reset();
+            crc.update(buffer.array(), start + 8, bodyLength);
+            buffer.putInt(start, bodyLength);
+            buffer.putInt(start + 4, (int) crc.getValue());
+        }
+        
+        private void ensureCapacity(int extra) {
+            if (buffer.remaining() < extra) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + extra));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+        
+        private void rollOver() throws IOException {
+            channel.close();
+            segment++;
+            channel = openSegment(segment);
+            segmentBytes = 0;
+            prune(dir);
+        }
+        
+        // Keeps the newest MAX_SEGMENTS segments, counting the one being written
+        private static void prune(Path dir) throws IOException {
+            List<Path> segments = segments(dir);
+            for (int i = 0; i < segments.size() - MAX_SEGMENTS; i++) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+        
+        private FileChannel openSegment(int number) throws IOException {
+            Path path = dir.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+            return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        
+        // Reads the segments written by earlier runs, oldest first
+        void replayHistory(Consumer<Event> consumer) throws IOException {
+            for (Path path : segments(dir)) {
+                if (segmentNumber(path) < firstSegment) {
+                    replay(path, consumer);
+                }
+            }
+        }
+        
+        static void replay(Path segment, Consumer<Event> consumer) throws IOException {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(segment));
+            CRC32 check = new CRC32();
+            while (in.remaining() >= 8) {
+                int bodyLength = in.getInt();
+                int expected = in.getInt();
+                if (bodyLength < 10 || bodyLength > in.remaining()) {
+                    return;
+                }
+                check.reset();
+                check.update(in.array(), in.position(), bodyLength);
+                if ((int) check.getValue() != expected) {
+                    return;
+                }
+                byte type = in.get();
+                long time = in.getLong();
+                String[] fields = new String[in.get()];
+                for (int i = 0; i < fields.length; i++) {
+                    byte[] bytes = new byte[in.getInt()];
+                    in.get(bytes);
+                    fields[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                consumer.accept(new Event(type, time, fields));
+            }
+        }
+        
+        private static List<Path> segments(Path dir) throws IOException {
+            try (Stream<Path> files = Files.list(dir)) {
+                return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted(Comparator.comparingInt(EventLog::segmentNumber))
+                    .collect(Collectors.toList());
+            }
+        }
+        
+        private static int segmentNumber(Path path) {
+            String name = path.getFileName().toString();
+            try {
+                return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+    
+    // Log-structured key-value store for per-user state (favourites, seen items,
+    // learned preferences). Writes go to an append-only write-ahead log and a
+    // sorted in-memory memtable; a full memtable is frozen and written out by a
+    // background thread as an immutable sorted segment file with a sparse key
+    // index, and once MAX_SEGMENTS have piled up they are merged into one.
+    // Reads check the memtables, then segments newest first, each lookup being a
+    // binary search of the in-memory index plus one block read. Flushes and
+    // compactions run on the same single thread, so they never race each other.
+    //
+    // Segment layout: records (u16 key length, UTF-8 key, int value length or -1
+    // for a deletion, value bytes), then the sparse index (int count, then per
+    // entry u16 key length, key, long offset), then a footer of long
+    // indexOffset, int recordCount, int magic.
+    static final class ProfileStore {
+        private static final int MAGIC = 0x534C5250; // "SLRP"
+        private static final long MEMTABLE_BYTES = 4L << 20;
+        private static final int MAX_SEGMENTS = 4;
+        private static final int INDEX_INTERVAL = 64;
+        private static final byte[] TOMBSTONE = new byte[0];
+        private static final String SEGMENT_PREFIX = "segment-";
+        private static final String SEGMENT_SUFFIX = ".sst";
+        private static final String WAL_PREFIX = "wal-";
+        private static final String WAL_SUFFIX = ".log";
+        
+        private final Path dir;
+        private final ExecutorService background = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "profile-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private TreeMap<String, byte[]> memtable = new TreeMap<>();
+        private TreeMap<String, byte[]> frozen;
+        private Path frozenWal;
+        // Set when the frozen memtable could not be written; the next full memtable retries it
+        private boolean flushFailed;
+        private long memtableBytes;
+        private FileChannel wal;
+        private int walNumber;
+        private int nextSegment;
+        private volatile List<Segment> segments = Collections.emptyList();
+        private final CRC32 crc = new CRC32();
+        
+        private ProfileStore(Path dir) {
+            this.dir = dir;
+        }
+        
+        // Opens the store, turning any write-ahead logs left by an earlier run into a segment.
+        // That adds a segment per launch, so they are merged here too once MAX_SEGMENTS pile up.
+        static ProfileStore open(Path dir) throws IOException {
+            Files.createDirectories(dir);
+            ProfileStore store = new ProfileStore(dir);
+            
+            List<Segment> opened = new ArrayList<>();
+            for (Path path : list(dir, SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+                try {
+                    opened.add(0, Segment.open(path, number(path, SEGMENT_PREFIX, SEGMENT_SUFFIX)));
+                } catch (IOException e) {
+                    System.out.println("Skipping damaged profile segment " + path.getFileName() + ": " + e.getMessage());
+                }
+                store.nextSegment = Math.max(store.nextSegment, number(path, SEGMENT_PREFIX, SEGMENT_SUFFIX) + 1);
+            }
+            store.segments = opened;
+            
+            List<Path> wals = list(dir, WAL_PREFIX, WAL_SUFFIX);
+            for (Path path : wals) {
+                replayWal(path, store.memtable);
+                store.walNumber = Math.max(store.walNumber, number(path, WAL_PREFIX, WAL_SUFFIX) + 1);
+            }
+            if (!store.memtable.isEmpty()) {
+                Segment recovered = store.writeSegment(store.memtable.entrySet().iterator());
+                List<Segment> withRecovered = new ArrayList<>(store.segments);
+                withRecovered.add(0, recovered);
+                store.segments = withRecovered;
+                store.memtable = new TreeMap<>();
+            }
+            for (Path path : wals) {
+                Files.delete(path);
+            }
+            store.wal = store.openWal(store.walNumber);
+            if (store.segments.size() >= MAX_SEGMENTS) {
+                store.background.execute(store::compactQuietly);
+            }
+            return store;
+        }
+        
+        // Value for key, or null if it was never written or has been deleted
+        byte[] get(String key) throws IOException {
+            while (true) {
+                List<Segment> snapshot;
+                synchronized (this) {
+                    byte[] value = memtable.get(key);
+                    if (value == null && frozen != null) {
+                        value = frozen.get(key);
+                    }
+                    if (value != null) {
+                        return value == TOMBSTONE ? null : value;
+                    }
+                    snapshot = segments;
+                }
+                try {
+                    for (Segment segment : snapshot) {
+                        byte[] value = segment.get(key);
+                        if (value != null) {
+                            return value == TOMBSTONE ? null : value;
+                        }
+                    }
+                    return null;
+                } catch (ClosedChannelException e) {
+                    // A compaction retired a segment mid-read; retry against the new set
+                    retryIfReplaced(snapshot, e);
+                }
+            }
+        }
+        
+        // All live entries whose key starts with prefix, in key order
+        SortedMap<String, byte[]> scan(String prefix) throws IOException {
+            while (true) {
+                List<Segment> snapshot;
+                TreeMap<String, byte[]> newer = new TreeMap<>();
+                synchronized (this) {
+                    if (frozen != null) {
+                        newer.putAll(frozen.subMap(prefix, prefixEnd(prefix)));
+                    }
+                    newer.putAll(memtable.subMap(prefix, prefixEnd(prefix)));
+                    snapshot = segments;
+                }
+                try {
+                    TreeMap<String, byte[]> result = new TreeMap<>();
+                    for (int i = snapshot.size() - 1; i >= 0; i--) {
+                        snapshot.get(i).scan(prefix, result);
+                    }
+                    result.putAll(newer);
+                    result.values().removeIf(value -> value == TOMBSTONE);
+                    return result;
+                } catch (ClosedChannelException e) {
+                    // Retry against the segments that replaced it
+                    retryIfReplaced(snapshot, e);
+                }
+            }
+        }
+        
+        // A closed channel is only worth a retry when the segment set has changed since;
+        // otherwise the same read would fail the same way forever
+        private synchronized void retryIfReplaced(List<Segment> snapshot, ClosedChannelException e) throws ClosedChannelException {
+            if (segments == snapshot) {
+                throw e;
+            }
+        }
+        
+        void put(String key, byte[] value) throws IOException {
+            write(key, value);
+        }
+        
+        void delete(String key) throws IOException {
+            write(key, TOMBSTONE);
+        }
+        
+        private synchronized void write(String key, byte[] value) throws IOException {
+            appendWal(key, value);
+            byte[] previous = memtable.put(key, value);
+            memtableBytes += key.length() * 2 + value.length - (previous == null ? 0 : previous.length);
+            if (memtableBytes >= MEMTABLE_BYTES) {
+                if (frozen == null) {
+                    freezeMemtable();
+                } else if (flushFailed) {
+                    flushFailed = false;
+                    TreeMap<String, byte[]> toFlush = frozen;
+                    Path toFlushWal = frozenWal;
+                    background.execute(() -> flush(toFlush, toFlushWal));
+                }
+            }
+        }
+        
+        // Hands the memtable to the background thread and starts a fresh one
+        private void freezeMemtable() throws IOException {
+            wal.force(false);
+            wal.close();
+            Path toFlushWal = walPath(walNumber);
+            walNumber++;
+            wal = openWal(walNumber);
+            
+            frozen = memtable;
+            frozenWal = toFlushWal;
+            memtable = new TreeMap<>();
+            memtableBytes = 0;
+            TreeMap<String, byte[]> toFlush = frozen;
+            background.execute(() -> flush(toFlush, toFlushWal));
+        }
+        
+        private void flush(TreeMap<String, byte[]> table, Path tableWal) {
+            Segment segment;
+            try {
+                segment = writeSegment(table.entrySet().iterator());
+            } catch (IOException e) {
+                // The frozen memtable stays readable and its log is kept; the next full
+                // memtable retries the flush, and failing that the next launch recovers it
+                System.out.println("Error flushing profile store: " + e.getMessage());
+                synchronized (this) {
+                    flushFailed = true;
+                }
+                return;
+            }
+            synchronized (this) {
+                List<Segment> next = new ArrayList<>(segments);
+                next.add(0, segment);
+                segments = next;
+                frozen = null;
+                frozenWal = null;
+            }
+            try {
+                Files.deleteIfExists(tableWal);
+            } catch (IOException e) {
+                System.out.println("Error deleting profile log: " + e.getMessage());
+            }
+            if (segments.size() >= MAX_SEGMENTS) {
+                compactQuietly();
+            }
+        }
+        
+        private void compactQuietly() {
+            try {
+                compact();
+            } catch (IOException e) {
+                // The inputs stay in place and are merged on the next attempt
+                System.out.println("Error compacting profile store: " + e.getMessage());
+            }
+        }
+        
+        // Merges every segment into one, dropping deleted and overwritten entries.
+        // Runs on the background thread, so no flush can add a segment meanwhile.
+        private void compact() throws IOException {
+            List<Segment> inputs = segments;
+            PriorityQueue<SegmentCursor> heads = new PriorityQueue<>((a, b) -> {
+                int byKey = a.key.compareTo(b.key);
+                return byKey != 0 ? byKey : Integer.compare(b.segment.number, a.segment.number);
+            });
+            for (Segment segment : inputs) {
+                SegmentCursor cursor = new SegmentCursor(segment);
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+            
+            Iterator<Map.Entry<String, byte[]>> merged = new Iterator<Map.Entry<String, byte[]>>() {
+                private Map.Entry<String, byte[]> next = step();
+                
+                private Map.Entry<String, byte[]> step() {
+                    try {
+                        while (!heads.isEmpty()) {
+                            // The newest segment wins; older versions of the key are skipped
+                            SegmentCursor newest = heads.poll();
+                            Map.Entry<String, byte[]> entry = new AbstractMap.SimpleEntry<>(newest.key, newest.value);
+                            if (newest.advance()) {
+                                heads.add(newest);
+                            }
+                            while (!heads.isEmpty() && heads.peek().key.equals(entry.getKey())) {
+                                SegmentCursor older = heads.poll();
+                                if (older.advance()) {
+                                    heads.add(older);
+                                }
+                            }
+                            if (entry.getValue() != TOMBSTONE) {
+                                return entry;
+                            }
+                        }
+                        return null;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+                
+                @Override
+                public Map.Entry<String, byte[]> next() {
+                    Map.Entry<String, byte[]> current = next;
+                    next = step();
+                    return current;
+                }
+            };
+            
+            Segment output;
+            try {
+                output = writeSegment(merged);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            synchronized (this) {
+                List<Segment> next = new ArrayList<>(segments);
+                next.removeAll(inputs);
+                next.add(output);
+                segments = next;
+            }
+            for (Segment segment : inputs) {
+                segment.retire();
+                Files.deleteIfExists(segment.path);
+            }
+        }
+        
+        // Flushes the log and stops background work
+        void close() {
+            background.shutdown();
+            try {
+                background.awaitTermination(5, TimeUnit.SECONDS);
+                synchronized (this) {
+                    wal.force(false);
+                    wal.close();
+                }
+                for (Segment segment : segments) {
+                    segment.retire();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                System.out.println("Error closing profile store: " + e.getMessage());
+            }
+        }
+        
+        // WAL record: int bodyLength, int crc32(body), then u16 key length, key, int value length or -1, value
+        private void appendWal(String key, byte[] value) throws IOException {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            int valueLength = value == TOMBSTONE ? 0 : value.length;
+            int bodyLength = 2 + keyBytes.length + 4 + valueLength;
+            ByteBuffer record = ByteBuffer.allocate(8 + bodyLength);
+            record.position(8);
+            record.putShort((short) keyBytes.length);
+            record.put(keyBytes);
+            record.putInt(value == TOMBSTONE ? -1 : value.length);
+            record.put(value);
+            crc.reset();
+            crc.update(record.array(), 8, bodyLength);
+            record.putInt(0, bodyLength);
+            record.putInt(4, (int) crc.getValue());
+            record.flip();
+            while (record.hasRemaining()) {
+                wal.write(record);
+            }
+        }
+        
+        private static void replayWal(Path path, Map<String, byte[]> into) throws IOException {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path));
+            CRC32 check = new CRC32();
+            while (in.remaining() >= 8) {
+                int bodyLength = in.getInt();
+                int expected = in.getInt();
+                if (bodyLength < 6 || bodyLength > in.remaining()) {
+                    return;
+                }
+                check.reset();
+                check.update(in.array(), in.position(), bodyLength);
+                if ((int) check.getValue() != expected) {
+                    return;
+                }
+                String key = readKey(in);
+                into.put(key, readValue(in));
+            }
+        }
+        
+        private FileChannel openWal(int number) throws IOException {
+            return FileChannel.open(walPath(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        
+        private Path walPath(int number) {
+            return dir.resolve(String.format("%s%08d%s", WAL_PREFIX, number, WAL_SUFFIX));
+        }
+        
+        // Writes sorted entries to a new segment; the temp file is renamed only once complete
+        private Segment writeSegment(Iterator<Map.Entry<String, byte[]>> entries) throws IOException {
+            int number;
+            synchronized (this) {
+                number = nextSegment++;
+            }
+            Path path = dir.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            
+            List<byte[]> indexKeys = new ArrayList<>();
+            List<Long> indexOffsets = new ArrayList<>();
+            int count = 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                while (entries.hasNext()) {
+                    Map.Entry<String, byte[]> entry = entries.next();
+                    byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                    if (count % INDEX_INTERVAL == 0) {
+                        indexKeys.add(key);
+                        indexOffsets.add((long) out.size());
+                    }
+                    out.writeShort(key.length);
+                    out.write(key);
+                    byte[] value = entry.getValue();
+                    out.writeInt(value == TOMBSTONE ? -1 : value.length);
+                    out.write(value);
+                    count++;
+                }
+                
+                // DataOutputStream.size() is an int, so segments stay under 2 GB
+                long indexOffset = out.size();
+                out.writeInt(indexKeys.size());
+                for (int i = 0; i < indexKeys.size(); i++) {
+                    out.writeShort(indexKeys.get(i).length);
+                    out.write(indexKeys.get(i));
+                    out.writeLong(indexOffsets.get(i));
+                }
+                out.writeLong(indexOffset);
+                out.writeInt(count);
+                out.writeInt(MAGIC);
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            return Segment.open(path, number);
+        }
+        
+        private static String readKey(ByteBuffer in) {
+            byte[] key = new byte[in.getShort() & 0xFFFF];
+            in.get(key);
+            return new String(key, StandardCharsets.UTF_8);
+        }
+        
+        private static byte[] readValue(ByteBuffer in) {
+            int length = in.getInt();
+            if (length < 0) {
+                return TOMBSTONE;
+            }
+            byte[] value = new byte[length];
+            in.get(value);
+            return value;
+        }
+        
+        private static String prefixEnd(String prefix) {
+            return prefix + Character.MAX_VALUE;
+        }
+        
+        private static List<Path> list(Path dir, String prefix, String suffix) throws IOException {
+            try (Stream<Path> files = Files.list(dir)) {
+                return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(suffix);
+                    })
+                    .sorted(Comparator.comparingInt(path -> number(path, prefix, suffix)))
+                    .collect(Collectors.toList());
+            }
+        }
+        
+        private static int number(Path path, String prefix, String suffix) {
+            String name = path.getFileName().toString();
+            try {
+                return Integer.parseInt(name.substring(prefix.length(), name.length() - suffix.length()));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        
+        // One immutable segment file; only the sparse index is held in memory
+        private static final class Segment {
+            final Path path;
+            final int number;
+            private volatile FileChannel channel;
+            private boolean retired;
+            private final String[] indexKeys;
+            private final long[] indexOffsets;
+            private final long indexOffset;
+            
+            private Segment(Path path, int number, FileChannel channel, String[] indexKeys, long[] indexOffsets, long indexOffset) {
+                this.path = path;
+                this.number = number;
+                this.channel = channel;
+                this.indexKeys = indexKeys;
+                this.indexOffsets = indexOffsets;
+                this.indexOffset = indexOffset;
+            }
+            
+            static Segment open(Path path, int number) throws IOException {
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                try {
+                    long size = channel.size();
+                    if (size < 16) {
+                        throw new IOException("truncated segment");
+                    }
+                    ByteBuffer footer = read(channel, size - 16, 16);
+                    long indexOffset = footer.getLong();
+                    footer.getInt();
+                    if (footer.getInt() != MAGIC || indexOffset < 0 || indexOffset > size - 16) {
+                        throw new IOException("bad segment footer");
+                    }
+                    
+                    ByteBuffer index = read(channel, indexOffset, (int) (size - 16 - indexOffset));
+                    int entries = index.getInt();
+                    String[] keys = new String[entries];
+                    long[] offsets = new long[entries];
+                    for (int i = 0; i < entries; i++) {
+                        keys[i] = readKey(index);
+                        offsets[i] = index.getLong();
+                    }
+                    return new Segment(path, number, channel, keys, offsets, indexOffset);
+                } catch (IOException | RuntimeException e) {
+                    channel.close();
+                    throw e;
+                }
+            }
+            
+            // Value, TOMBSTONE, or null if the key is not in this segment
+            byte[] get(String key) throws IOException {
+                int block = Arrays.binarySearch(indexKeys, key);
+                if (block < 0) {
+                    block = -block - 2;
+                    if (block < 0) {
+                        return null;
+                    }
+                }
+                ByteBuffer in = readBlock(block);
+                while (in.hasRemaining()) {
+                    int order = readKey(in).compareTo(key);
+                    if (order == 0) {
+                        return readValue(in);
+                    }
+                    if (order > 0) {
+                        return null;
+                    }
+                    skipValue(in);
+                }
+                return null;
+            }
+            
+            // Adds entries with the prefix to into, overwriting older values
+            void scan(String prefix, Map<String, byte[]> into) throws IOException {
+                int block = Arrays.binarySearch(indexKeys, prefix);
+                block = block >= 0 ? block : Math.max(0, -block - 2);
+                for (; block < indexKeys.length; block++) {
+                    ByteBuffer in = readBlock(block);
+                    while (in.hasRemaining()) {
+                        String key = readKey(in);
+                        if (key.compareTo(prefix) < 0) {
+                            skipValue(in);
+                        } else if (key.startsWith(prefix)) {
+                            into.put(key, readValue(in));
+                        } else {
+                            return;
+                        }
+                    }
+                }
+            }
+            
+            ByteBuffer readBlock(int block) throws IOException {
+                long start = indexOffsets[block];
+                long end = block + 1 < indexOffsets.length ? indexOffsets[block + 1] : indexOffset;
+                try {
+                    return read(channel, start, (int) (end - start));
+                } catch (ClosedByInterruptException e) {
+                    // An interrupted reader closes the channel for everyone; the next read reopens it
+                    throw e;
+                } catch (ClosedChannelException e) {
+                    return read(reopen(e), start, (int) (end - start));
+                }
+            }
+            
+            private synchronized FileChannel reopen(ClosedChannelException closed) throws IOException {
+                if (retired) {
+                    throw closed;
+                }
+                if (!channel.isOpen()) {
+                    channel = FileChannel.open(path, StandardOpenOption.READ);
+                }
+                return channel;
+            }
+            
+            synchronized void retire() throws IOException {
+                retired = true;
+                channel.close();
+            }
+            
+            private static void skipValue(ByteBuffer in) {
+                int length = in.getInt();
+                if (length > 0) {
+                    in.position(in.position() + length);
+                }
+            }
+            
+            private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        throw new EOFException("unexpected end of segment");
+                    }
+                }
+                buffer.flip();
+                return buffer;
+            }
+        }
+        
+        // Sequential reader used by compaction
+        private static final class SegmentCursor {
+            final Segment segment;
+            private int block = -1;
+            private ByteBuffer in = ByteBuffer.allocate(0);
+            String key;
+            byte[] value;
+            
+            SegmentCursor(Segment segment) {
+                this.segment = segment;
+            }
+            
+            boolean advance() throws IOException {
+                while (!in.hasRemaining()) {
+                    if (++block >= segment.indexKeys.length) {
+                        return false;
+                    }
+                    in = segment.readBlock(block);
+                }
+                key = readKey(in);
+                value = readValue(in);
+                return true;
+            }
+        }
+    }
+    
+    public static void main(String[] args) {
+        launch(args);
+        if (soakExitCode != 0) {
+            System.exit(soakExitCode);
+        }
     }
 }